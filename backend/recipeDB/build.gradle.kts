@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.5.7"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.diegolara"
@@ -29,8 +30,14 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.13")
     compileOnly("org.projectlombok:lombok")
-    runtimeOnly("org.postgresql:postgresql")
+    // compile scope for the COPY API used by RecipeImportService
+    implementation("org.postgresql:postgresql")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation ("org.springframework.boot:spring-boot-starter-security")
+    implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-csv")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
@@ -39,3 +46,27 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+// ./gradlew jmh, benchmarks live in src/jmh/java. Results are written as JSON per version so
+// releases can be compared; -PjmhIncludes=<regex> runs a subset (e.g. -PjmhIncludes=Json).
+// RepositoryBenchmark and BulkInsertBenchmark need a dedicated database, JMH_DB_URL (never the app database).
+jmh {
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results-${project.version}.json")
+    (findProperty("jmhIncludes") as String?)?.let { includes = listOf(it) }
+}
+
+// closed-loop HTTP load test against a running server, see LoadTest for the options:
+// ./gradlew loadTest -PloadTestArgs="--base-url=http://localhost:8080 --recipe-id=1"
+val loadtest by sourceSets.creating
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the HTTP load test in src/loadtest/java against a running server."
+    classpath = loadtest.runtimeClasspath
+    mainClass = "com.example.recipeDB.loadtest.LoadTest"
+    args = (findProperty("loadTestArgs") as String? ?: "").split(" ").filter { it.isNotBlank() }
+}
@@ -0,0 +1,55 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// deterministic in-memory entities for the benchmarks that don't touch the database
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {}
+
+    static List<Recipe> recipes(int count, long seed) {
+        Random random = new Random(seed);
+        List<User> owners = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            User user = new User();
+            user.setUserID(i + 1);
+            user.setUsername("owner" + i);
+            owners.add(user);
+        }
+
+        List<Recipe> recipes = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            Recipe recipe = new Recipe();
+            recipe.setRecipeID(id);
+            recipe.setTitle("Recipe number " + id);
+            recipe.setDescription("A reasonably short description of recipe " + id + " for the listing card");
+            recipe.setPrepTime(5 + random.nextInt(40));
+            recipe.setCookTime(random.nextInt(120));
+            recipe.setServings(1 + random.nextInt(8));
+            recipe.setDifficulty(1 + random.nextInt(5));
+            recipe.setUpvotes(random.nextInt(500));
+            recipe.setSteps("1. Prepare everything.\n2. Cook it.\n3. Serve warm.\n".repeat(3));
+            recipe.setImageUrl("https://images.example.com/recipes/" + id + ".jpg");
+            recipe.setTags(distinct(random, Tag.values(), 1 + random.nextInt(3)));
+            recipe.setIngredients(distinct(random, Ingredient.values(), 4 + random.nextInt(7)));
+            recipe.setOwner(owners.get(random.nextInt(owners.size())));
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    static <E> List<E> distinct(Random random, E[] values, int count) {
+        List<E> picked = new ArrayList<>(count);
+        while (picked.size() < count) {
+            E value = values[random.nextInt(values.length)];
+            if (!picked.contains(value)) picked.add(value);
+        }
+        return picked;
+    }
+}
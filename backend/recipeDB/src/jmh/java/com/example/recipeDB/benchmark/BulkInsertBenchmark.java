@@ -0,0 +1,141 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.RecipeApplication;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Comment;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time to insert jmh.bulk-recipes recipes (default 100k) with two tags, three
+ * ingredients and a comment each, in transactions of 1000. batched=false pays what writes used to
+ * cost: a nextval round trip per recipe and per comment and one insert per row. batched=true is
+ * the current mapping, pooled-lo ids and JDBC batching. BulkInsertQueryCountTests checks the
+ * statement counts of the same two paths on every build.
+ *
+ * Runs against JMH_DB_URL like RepositoryBenchmark; each iteration deletes what it inserted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class BulkInsertBenchmark {
+    private static final int RECIPES = Integer.getInteger("jmh.bulk-recipes", 100_000);
+    private static final int CHUNK = 1_000;
+    private static final String OWNER = "jmh-bulk-insert";
+
+    @Param({"false", "true"})
+    public boolean batched;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private int ownerID;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RecipeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=${JMH_DB_URL}", "--recipes.filter-index.enabled=false",
+                        "--recipes.similar.enabled=false", "--spring.jpa.open-in-view=false");
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // left behind by an interrupted run
+        deleteInserted();
+    }
+
+    @Setup(Level.Iteration)
+    public void createOwner() {
+        ownerID = transactionTemplate.execute(status -> {
+            User user = new User();
+            user.setUsername(OWNER);
+            user.setEmail(OWNER + "@example.com");
+            user.setPassword("{noop}password");
+            entityManager.persist(user);
+            return user.getUserID();
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInserted() {
+        String inserted = "(select recipeid from recipes r join users u on u.userid = r.user_id where u.username = '" + OWNER + "')";
+        jdbcTemplate.update("delete from comments where recipe_id in " + inserted);
+        jdbcTemplate.update("delete from recipe_tags where recipe_recipeid in " + inserted);
+        jdbcTemplate.update("delete from recipe_ingredients where recipe_recipeid in " + inserted);
+        jdbcTemplate.update("delete from recipes where recipeid in " + inserted);
+        jdbcTemplate.update("delete from users where username = ?", OWNER);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insert() {
+        for (int from = 0; from < RECIPES; from += CHUNK) {
+            int start = from, end = Math.min(from + CHUNK, RECIPES);
+            transactionTemplate.executeWithoutResult(status -> {
+                Session session = entityManager.unwrap(Session.class);
+                User owner = entityManager.getReference(User.class, ownerID);
+                if (!batched) session.setJdbcBatchSize(1);
+                for (int i = start; i < end; i++) {
+                    if (!batched) {
+                        // allocationSize is fixed by the mapping, the old allocationSize = 1 round trips are paid explicitly
+                        nextval("recipes_seq");
+                        nextval("comments_seq");
+                    }
+                    entityManager.persist(newRecipe(owner, i));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return RECIPES;
+    }
+
+    private Recipe newRecipe(User owner, int i) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Bulk recipe " + i);
+        recipe.setDescription("inserted by BulkInsertBenchmark");
+        recipe.setPrepTime(5 + i % 30);
+        recipe.setCookTime(10 + i % 60);
+        recipe.setServings(1 + i % 6);
+        recipe.setDifficulty(1 + i % 5);
+        recipe.setSteps("1. prep\n2. cook\n3. serve");
+        Tag[] tags = Tag.values();
+        Ingredient[] ingredients = Ingredient.values();
+        recipe.setTags(List.of(tags[i % tags.length], tags[(i + 1) % tags.length]));
+        recipe.setIngredients(List.of(ingredients[i % ingredients.length], ingredients[(i + 1) % ingredients.length],
+                ingredients[(i + 2) % ingredients.length]));
+        recipe.setOwner(owner);
+
+        Comment comment = new Comment();
+        comment.setText("Tried it, works");
+        comment.setRecipe(recipe);
+        comment.setAuthor(owner);
+        recipe.getComments().add(comment);
+        return recipe;
+    }
+
+    private void nextval(String sequence) {
+        entityManager.createNativeQuery("select nextval('" + sequence + "')").getSingleResult();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.EnumMasks;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding tag/ingredient lists the way requests arrive: repeated or comma-separated query
+ * parameters through Spring's conversion service (@RequestParam List<Tag>), JSON arrays
+ * through Jackson, and the bitmask conversion the filter index does afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EnumBindingBenchmark {
+
+    private static final TypeDescriptor STRING_ARRAY = TypeDescriptor.valueOf(String[].class);
+    private static final TypeDescriptor STRING = TypeDescriptor.valueOf(String.class);
+    private static final TypeDescriptor TAG_LIST = TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(Tag.class));
+    private static final TypeDescriptor INGREDIENT_LIST =
+            TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(Ingredient.class));
+
+    private final String[] tagParams = {"VEGAN", "GLUTEN_FREE", "QUICK_EASY"};
+    private final String ingredientParam = "FLOUR,EGGS,MILK,BUTTER,SUGAR,SALT,VANILLA,CHOCOLATE";
+    private final String ingredientJson = "[\"FLOUR\",\"EGGS\",\"MILK\",\"BUTTER\",\"SUGAR\",\"SALT\",\"VANILLA\",\"CHOCOLATE\"]";
+    private final TypeReference<List<Ingredient>> ingredientListType = new TypeReference<>() {};
+
+    private DefaultFormattingConversionService conversionService;
+    private ObjectMapper objectMapper;
+    private List<Ingredient> ingredients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        conversionService = new DefaultFormattingConversionService();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ingredients = List.of(Ingredient.FLOUR, Ingredient.EGGS, Ingredient.MILK, Ingredient.BUTTER,
+                Ingredient.SUGAR, Ingredient.SALT, Ingredient.VANILLA, Ingredient.CHOCOLATE);
+    }
+
+    @Benchmark
+    public Object bindRepeatedTagParams() {
+        return conversionService.convert(tagParams, STRING_ARRAY, TAG_LIST);
+    }
+
+    @Benchmark
+    public Object bindCommaSeparatedIngredients() {
+        return conversionService.convert(ingredientParam, STRING, INGREDIENT_LIST);
+    }
+
+    @Benchmark
+    public List<Ingredient> readIngredientJson() throws Exception {
+        return objectMapper.readValue(ingredientJson, ingredientListType);
+    }
+
+    @Benchmark
+    public long ingredientMask() {
+        return EnumMasks.ingredientMask(ingredients);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pantry match over a synthetic catalog held in {@link RecipeFilterIndex}, no database involved.
+ * Recipes have 4-10 ingredients drawn with a skew towards staples, pantries hold 12.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PantryMatchBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int recipes;
+
+    @Param({"20"})
+    public int topK;
+
+    private RecipeFilterIndex index;
+    private long[] pantries;
+    private int next;
+    private final RecipeFilterIndex.Filter noFilter = new RecipeFilterIndex.Filter(0, 0, 0, 0, 0, 0);
+    private RecipeFilterIndex.Filter veganFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Ingredient[] allIngredients = Ingredient.values();
+        Tag[] allTags = Tag.values();
+
+        // no JdbcTemplate needed, the index is only filled through put
+        index = new RecipeFilterIndex(null, null);
+        for (int id = 1; id <= recipes; id++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            int count = 4 + random.nextInt(7);
+            while (ingredients.size() < count) {
+                Ingredient ing = allIngredients[skewed(random, allIngredients.length)];
+                if (!ingredients.contains(ing)) ingredients.add(ing);
+            }
+            List<Tag> tags = new ArrayList<>();
+            int tagCount = 1 + random.nextInt(3);
+            while (tags.size() < tagCount) {
+                Tag tag = allTags[random.nextInt(allTags.length)];
+                if (!tags.contains(tag)) tags.add(tag);
+            }
+            index.put(id, tags, ingredients);
+        }
+
+        pantries = new long[64];
+        for (int p = 0; p < pantries.length; p++) {
+            long mask = 0;
+            while (Long.bitCount(mask) < 12) {
+                mask |= 1L << allIngredients[skewed(random, allIngredients.length)].ordinal();
+            }
+            pantries[p] = mask;
+        }
+        veganFilter = new RecipeFilterIndex.Filter(0, 1L << Tag.VEGAN.ordinal(), 0, 0, 0, 0);
+    }
+
+    // earlier constants (sugar, salt, flour, ...) are picked far more often than the tail
+    private static int skewed(Random random, int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * bound);
+    }
+
+    @Benchmark
+    public int pantryMatch() {
+        int[] out = new int[topK];
+        return index.pantryMatch(pantries[next++ & 63], noFilter, Integer.MAX_VALUE, out);
+    }
+
+    @Benchmark
+    public int pantryMatchWithTagConstraint() {
+        int[] out = new int[topK];
+        return index.pantryMatch(pantries[next++ & 63], veganFilter, 3, out);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.helper.Utils;
+import com.example.recipeDB.models.Recipe;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of listing responses, full RecipeDTO against RecipeSummaryDTO,
+ * with an ObjectMapper configured the way Spring Boot configures the one MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecipeJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<RecipeDTO> recipes;
+    private List<RecipeSummaryDTO> summaries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Recipe> entities = BenchmarkFixtures.recipes(size, 42);
+        recipes = Utils.mapToRecipeDTOs(entities, new HashMap<>());
+        summaries = recipes.stream().map(r -> new RecipeSummaryDTO(r.recipeID(), r.title(), r.description(),
+                r.prepTime(), r.cookTime(), r.servings(), r.difficulty(), r.upvotes(), r.imageUrl(),
+                r.tags(), r.ingredients(), r.ownerUsername())).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeRecipeDTOs() throws Exception {
+        return objectMapper.writeValueAsBytes(recipes);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaries() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
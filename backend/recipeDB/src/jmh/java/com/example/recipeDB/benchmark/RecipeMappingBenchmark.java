@@ -0,0 +1,56 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.dto.CommentDTO;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipePageDTO;
+import com.example.recipeDB.helper.Utils;
+import com.example.recipeDB.models.Recipe;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping: one detail view with its first page of comments, and listings
+ * of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecipeMappingBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private List<Recipe> recipes;
+    private Map<Integer, Integer> commentCounts;
+    private RecipePageDTO<CommentDTO> firstComments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        recipes = BenchmarkFixtures.recipes(size, 42);
+        commentCounts = new HashMap<>();
+        for (Recipe r : recipes) commentCounts.put(r.getRecipeID(), r.getRecipeID() % 40);
+
+        List<CommentDTO> comments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            comments.add(new CommentDTO(i, 1, "Comment number " + i + " on this recipe", "commenter" + i,
+                    Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i)));
+        }
+        firstComments = new RecipePageDTO<>(comments, "cursor");
+    }
+
+    @Benchmark
+    public RecipeDTO mapDetail() {
+        return Utils.mapToRecipeDTO(recipes.get(0), 40, firstComments);
+    }
+
+    @Benchmark
+    public List<RecipeDTO> mapListing() {
+        return Utils.mapToRecipeDTOs(recipes, commentCounts);
+    }
+}
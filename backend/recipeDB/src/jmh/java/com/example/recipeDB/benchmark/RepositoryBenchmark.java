@@ -0,0 +1,107 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.RecipeApplication;
+import com.example.recipeDB.helper.Utils;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.repository.CommentRepository;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.service.SyntheticDataGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository hot paths against a dedicated Postgres database, JMH_DB_URL (DB_USERNAME and
+ * DB_PASSWORD as usual), with the application context started without a web server. The first
+ * run seeds it with {@link SyntheticDataGenerator} (seed profile, jmh.recipes recipes, default
+ * 100k, fixed random seed). The catalog is kept for later runs so numbers stay comparable between
+ * releases. The generator only counts a catalog as present once every batch has committed.
+ * Never point JMH_DB_URL at a database holding real data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+    private static final int RECIPES = Integer.getInteger("jmh.recipes", 100_000);
+
+    private ConfigurableApplicationContext context;
+    private RecipeRepository recipeRepository;
+    private CommentRepository commentRepository;
+    private TransactionTemplate readOnly;
+    private int[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RecipeApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("seed")
+                // arguments, not builder properties: those are defaults that application*.properties override
+                .run("--spring.datasource.url=${JMH_DB_URL}",
+                        "--seed.recipes=" + RECIPES, "--seed.users=" + Math.max(1_000, RECIPES / 20),
+                        "--seed.random-seed=42", "--recipes.filter-index.enabled=false",
+                        "--recipes.similar.enabled=false", "--spring.jpa.open-in-view=false");
+        recipeRepository = context.getBean(RecipeRepository.class);
+        commentRepository = context.getBean(CommentRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        ids = context.getBean(JdbcTemplate.class).queryForList("""
+                select r.recipeid from recipes r join users u on u.userid = r.user_id
+                where u.username like ? order by r.recipeid
+                """, Integer.class, SyntheticDataGenerator.USERNAME_PREFIX + "%")
+                .stream().mapToInt(Integer::intValue).toArray();
+        // a fixed random visiting order, so the same pages are read in every run
+        Random random = new Random(7);
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = ids[i];
+            ids[i] = ids[j];
+            ids[j] = t;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int nextId() {
+        return ids[next++ % ids.length];
+    }
+
+    @Benchmark
+    public Object feedNewestPage() {
+        List<RecipeRepository.SummaryRow> rows = recipeRepository.findNewestPage(nextId(), 20);
+        return Utils.mapToRecipeSummaries(rows, recipeRepository.findEnumRows(rows.stream().map(RecipeRepository.SummaryRow::getRecipeID).toList()));
+    }
+
+    @Benchmark
+    public Object feedTopPage() {
+        return recipeRepository.findTopPage(100, nextId(), 20);
+    }
+
+    @Benchmark
+    public Object recipeDetail() {
+        int id = nextId();
+        return readOnly.execute(status -> {
+            Recipe recipe = recipeRepository.findDetailByRecipeID(id).orElseThrow();
+            recipe.getIngredients().size();
+            return List.of(recipe, commentRepository.countByRecipeID(id), commentRepository.findFirstPage(id, Limit.of(21)));
+        });
+    }
+
+    @Benchmark
+    public Object search() {
+        return recipeRepository.search(Utils.toPrefixTsQuery("crispy chick"), 20, 0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.recipeDB.benchmark;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.SimilarRecipeIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time and lookup latency of {@link SimilarRecipeIndex} over the same kind of synthetic
+ * catalog as PantryMatchBenchmark. The index size after the first build is printed on setup.
+ */
+@State(Scope.Benchmark)
+public class SimilarRecipeBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int recipes;
+
+    private SimilarRecipeIndex index;
+    private final int[] outIds = new int[SimilarRecipeIndex.NEIGHBOURS];
+    private final double[] outSimilarity = new double[SimilarRecipeIndex.NEIGHBOURS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Ingredient[] allIngredients = Ingredient.values();
+        Tag[] allTags = Tag.values();
+
+        RecipeFilterIndex filterIndex = new RecipeFilterIndex(null, null);
+        for (int id = 1; id <= recipes; id++) {
+            List<Ingredient> ingredients = new ArrayList<>();
+            int count = 4 + random.nextInt(7);
+            while (ingredients.size() < count) {
+                Ingredient ing = allIngredients[skewed(random, allIngredients.length)];
+                if (!ingredients.contains(ing)) ingredients.add(ing);
+            }
+            List<Tag> tags = new ArrayList<>();
+            int tagCount = 1 + random.nextInt(3);
+            while (tags.size() < tagCount) {
+                Tag tag = allTags[random.nextInt(allTags.length)];
+                if (!tags.contains(tag)) tags.add(tag);
+            }
+            filterIndex.put(id, tags, ingredients);
+        }
+
+        index = new SimilarRecipeIndex(filterIndex);
+        index.rebuild();
+        System.out.printf("%nSimilar-recipe index for %d recipes: %d MB%n", recipes, index.memoryBytes() / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.shutdown();
+    }
+
+    private static int skewed(Random random, int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * bound);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long rebuild() {
+        index.rebuild();
+        return index.memoryBytes();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int similar() {
+        next = next % recipes + 1;
+        return index.similar(next, outIds, outSimilarity);
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.recipeDB.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test against a running server: N clients each send a request, wait for the
+ * response and immediately send the next, for a fixed duration. Prints throughput and latency
+ * percentiles per scenario so runs with VIRTUAL_THREADS=false and =true can be compared.
+ *
+ * ./gradlew loadTest -PloadTestArgs="--base-url=http://localhost:8080 --recipe-id=1 --username=alice --password=secret"
+ *
+ * Options (all --name=value): base-url, recipe-id, username, password, concurrency (200),
+ * duration-seconds (30), warmup-seconds (5), label (printed with the results).
+ * The upvote scenario is skipped when no username is given.
+ *
+ * With --mix=true it instead runs a scripted mix against a seeded catalog (see
+ * SyntheticDataGenerator): every client logs in as its own user-prefix N (user-count users,
+ * all with the same password) and picks requests by weight from browse, tag filter, detail,
+ * comment, upvote toggle and login, reporting each endpoint separately. Recipe ids are taken
+ * from the first feed pages.
+ */
+public class LoadTest {
+    private static final Pattern CSRF_TOKEN = Pattern.compile("\"csrfToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final Pattern RECIPE_ID = Pattern.compile("\"recipeID\"\\s*:\\s*(\\d+)");
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String[] TAGS = {"VEGAN", "VEGETARIAN", "GLUTEN_FREE", "DAIRY_FREE", "KETO", "PALEO",
+            "LOW_CARB", "HIGH_PROTEIN", "QUICK_EASY", "DESSERT", "APPETIZER"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    // used by the single-scenario runs, the mix gives every client its own
+    private final Session shared = new Session();
+
+    LoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    record Result(String scenario, long requests, long errors, double seconds, long[] latenciesNanos) {
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double percentileMillis(double p) {
+            if (latenciesNanos.length == 0) return 0;
+            int i = (int) Math.ceil(p / 100 * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(i, 0)] / 1e6;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup-seconds", "5")));
+        String label = options.getOrDefault("label", "");
+
+        LoadTest test = new LoadTest(baseUrl);
+        if (Boolean.parseBoolean(options.getOrDefault("mix", "false"))) {
+            test.runMix(options, concurrency, warmup);
+            print(label, concurrency, test.runMix(options, concurrency, duration));
+            return;
+        }
+
+        int recipeId = Integer.parseInt(options.getOrDefault("recipe-id", "1"));
+        Session session = test.shared;
+        Map<String, Supplier<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("GET /api/recipes/r/byId/{id}", () -> session.get("/api/recipes/r/byId/" + recipeId));
+        if (options.containsKey("username")) {
+            session.login(options.get("username"), options.getOrDefault("password", ""));
+            scenarios.put("POST /api/recipes/r/{id}/upvote", () -> session.post("/api/recipes/r/" + recipeId + "/upvote", ""));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (var scenario : scenarios.entrySet()) {
+            test.run(scenario.getKey(), scenario.getValue(), concurrency, warmup);
+            results.add(test.run(scenario.getKey(), scenario.getValue(), concurrency, duration));
+        }
+        print(label, concurrency, results);
+    }
+
+    Result run(String name, Supplier<HttpRequest> request, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+        List<Future<long[]>> clients = new ArrayList<>();
+        long[] errors = new long[concurrency];
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int client = c;
+                clients.add(pool.submit(() -> {
+                    Latencies latencies = new Latencies();
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = this.client.send(request.get(), HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (java.io.IOException e) {
+                            ok = false;
+                        }
+                        long elapsed = System.nanoTime() - t0;
+                        if (!ok) {
+                            errors[client]++;
+                            continue;
+                        }
+                        latencies.add(elapsed);
+                    }
+                    return latencies.toArray();
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        List<long[]> parts = new ArrayList<>();
+        for (Future<long[]> f : clients) {
+            parts.add(f.get());
+        }
+        return result(name, Arrays.stream(errors).sum(), seconds, parts);
+    }
+
+    // one step of the scripted mix, run with the client's own session; logging in rotates the
+    // csrf token, so steps that do need a fresh one before the client's next write
+    private record Step(String name, int weight, MixRequest request, boolean rotatesCsrf) {
+        Step(String name, int weight, MixRequest request) {
+            this(name, weight, request, false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MixRequest {
+        HttpRequest create(Session session, Random random) throws Exception;
+    }
+
+    List<Result> runMix(Map<String, String> options, int concurrency, Duration duration) throws Exception {
+        String prefix = options.getOrDefault("user-prefix", "seed-user-");
+        int userCount = Integer.parseInt(options.getOrDefault("user-count", "10000"));
+        String password = options.getOrDefault("password", "password");
+        int[] recipeIds = sampleRecipeIds(Integer.parseInt(options.getOrDefault("recipe-pages", "10")));
+        if (recipeIds.length == 0) {
+            throw new IllegalStateException("The feed is empty, seed the database first");
+        }
+
+        // weights roughly follow a browsing-heavy site: reads dominate, writes are a few percent
+        List<Step> steps = List.of(
+                new Step("GET /api/recipes/feed", 30, (s, r) -> s.get("/api/recipes/feed")),
+                new Step("GET /api/recipes/filter", 20, (s, r) ->
+                        s.get("/api/recipes/filter?anyTags=" + TAGS[r.nextInt(TAGS.length)])),
+                new Step("GET /api/recipes/r/byId/{id}", 35, (s, r) ->
+                        s.get("/api/recipes/r/byId/" + recipeIds[r.nextInt(recipeIds.length)])),
+                new Step("POST /api/recipes/r/{id}/comment", 5, (s, r) ->
+                        s.postForm("/api/recipes/r/" + recipeIds[r.nextInt(recipeIds.length)] + "/comment",
+                                "text=" + URLEncoder.encode("load test comment " + r.nextInt(1000), StandardCharsets.UTF_8))),
+                new Step("POST /api/recipes/r/{id}/upvote", 8, (s, r) ->
+                        s.post("/api/recipes/r/" + recipeIds[r.nextInt(recipeIds.length)] + "/upvote", "")),
+                new Step("POST /api/auth/login", 2, (s, r) -> s.loginRequest(prefix + r.nextInt(userCount), password), true));
+        int totalWeight = steps.stream().mapToInt(Step::weight).sum();
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+        List<Future<Latencies[]>> clients = new ArrayList<>();
+        long[][] errors = new long[concurrency][steps.size()];
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int client = c;
+                clients.add(pool.submit(() -> {
+                    Random random = new Random(client);
+                    Session session = new Session();
+                    session.login(prefix + (client % userCount), password);
+                    Latencies[] latencies = new Latencies[steps.size()];
+                    Arrays.setAll(latencies, i -> new Latencies());
+                    while (System.nanoTime() < deadline) {
+                        int s = pick(steps, random.nextInt(totalWeight));
+                        // built outside the timed section, the login step fetches a csrf token here
+                        HttpRequest request = steps.get(s).request().create(session, random);
+                        long t0 = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = session.send(request).statusCode() < 400;
+                        } catch (java.io.IOException e) {
+                            ok = false;
+                        }
+                        long elapsed = System.nanoTime() - t0;
+                        if (ok && steps.get(s).rotatesCsrf()) session.refreshCsrf();
+                        if (ok) {
+                            latencies[s].add(elapsed);
+                        } else {
+                            errors[client][s]++;
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        List<Latencies[]> perClient = new ArrayList<>();
+        for (Future<Latencies[]> f : clients) {
+            perClient.add(f.get());
+        }
+        List<Result> results = new ArrayList<>();
+        for (int s = 0; s < steps.size(); s++) {
+            int step = s;
+            results.add(result(steps.get(s).name(), Arrays.stream(errors).mapToLong(e -> e[step]).sum(), seconds,
+                    perClient.stream().map(l -> l[step].toArray()).toList()));
+        }
+        return results;
+    }
+
+    private static int pick(List<Step> steps, int roll) {
+        for (int i = 0; i < steps.size(); i++) {
+            roll -= steps.get(i).weight();
+            if (roll < 0) return i;
+        }
+        return steps.size() - 1;
+    }
+
+    private int[] sampleRecipeIds(int pages) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        for (int p = 0; p < pages; p++) {
+            String path = "/api/recipes/feed" + (cursor == null ? "" : "?cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+            String body = shared.send(shared.get(path)).body();
+            Matcher id = RECIPE_ID.matcher(body);
+            while (id.find()) ids.add(Integer.parseInt(id.group(1)));
+            Matcher next = NEXT_CURSOR.matcher(body);
+            if (!next.find()) break;
+            cursor = next.group(1);
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Result result(String name, long errors, double seconds, List<long[]> parts) {
+        long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(name, all.length, errors, seconds, all);
+    }
+
+    private static final class Latencies {
+        private long[] values = new long[1024];
+        private int n;
+
+        void add(long nanos) {
+            if (n == values.length) values = Arrays.copyOf(values, n * 2);
+            values[n++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, n);
+        }
+    }
+
+    /**
+     * One client's cookies and csrf token. Cookies are sent by hand: the session and XSRF
+     * cookies are marked Secure and a plain http run against localhost would otherwise drop them.
+     */
+    final class Session {
+        private final Map<String, String> cookies = new ConcurrentHashMap<>();
+        private volatile String csrfToken;
+
+        void login(String username, String password) throws Exception {
+            HttpResponse<String> response = send(loginRequest(username, password));
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed with status " + response.statusCode());
+            }
+            // a fresh token for the authenticated session
+            refreshCsrf();
+        }
+
+        HttpRequest loginRequest(String username, String password) throws Exception {
+            refreshCsrf();
+            String body = "{\"username\":\"" + escape(username) + "\",\"password\":\"" + escape(password) + "\"}";
+            return post("/api/auth/login", body);
+        }
+
+        private void refreshCsrf() throws Exception {
+            HttpResponse<String> response = send(get("/api/auth/csrf"));
+            Matcher m = CSRF_TOKEN.matcher(response.body());
+            if (!m.find()) {
+                throw new IllegalStateException("No csrf token in " + response.body());
+            }
+            csrfToken = m.group(1);
+        }
+
+        HttpResponse<String> send(HttpRequest request) throws Exception {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            for (String header : response.headers().allValues("set-cookie")) {
+                String pair = header.split(";", 2)[0];
+                int eq = pair.indexOf('=');
+                if (eq > 0) cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            }
+            return response;
+        }
+
+        HttpRequest get(String path) {
+            return builder(path).GET().build();
+        }
+
+        HttpRequest post(String path, String json) {
+            return withCsrf(builder(path)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)));
+        }
+
+        HttpRequest postForm(String path, String form) {
+            return withCsrf(builder(path)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form)));
+        }
+
+        private HttpRequest withCsrf(HttpRequest.Builder b) {
+            if (csrfToken != null) b.header("X-XSRF-TOKEN", csrfToken);
+            return b.build();
+        }
+
+        private HttpRequest.Builder builder(String path) {
+            HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+            if (!cookies.isEmpty()) {
+                b.header("Cookie", String.join("; ", cookies.entrySet().stream()
+                        .map(e -> e.getKey() + "=" + e.getValue()).toList()));
+            }
+            return b;
+        }
+    }
+
+    private static void print(String label, int concurrency, List<Result> results) {
+        System.out.printf("%n%s (concurrency %d)%n", label.isEmpty() ? "results" : label, concurrency);
+        System.out.printf("%-36s %10s %8s %10s %9s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (Result r : results) {
+            System.out.printf("%-36s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    r.scenario(), r.requests(), r.errors(), r.throughput(),
+                    r.percentileMillis(50), r.percentileMillis(90), r.percentileMillis(99), r.percentileMillis(100));
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.recipeDB.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests in flight. With virtual threads Tomcat no longer has a
+ * thread pool to act as the limit, so without this thousands of requests would pile onto
+ * the Hikari pool and Postgres at once. Requests that can't get a permit within
+ * recipes.admission.queue-timeout are rejected with 503 instead of waiting for a connection.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private final int maxConcurrent;
+    private final long queueTimeoutNanos;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public AdmissionControlFilter(
+            @Value("${recipes.admission.max-concurrent-requests:400}") int maxConcurrent,
+            @Value("${recipes.admission.queue-timeout:PT1S}") Duration queueTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.permits = new Semaphore(Math.max(maxConcurrent, 1));
+        this.rejected = Counter.builder("recipedb.admission.rejected")
+                .description("Requests rejected because the in-flight limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("recipedb.admission.in_flight", this, f -> f.maxConcurrent - f.permits.availablePermits())
+                .description("Requests currently holding an admission permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (maxConcurrent <= 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            rejected.increment();
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is at capacity");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.recipeDB.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs every hash and hash check of the wrapped encoder on a small fixed pool with a bounded
+ * queue. A login burst then costs at most `threads` cores of hashing. Once the queue is full,
+ * further logins and sign-ups fail fast with 503, and recipe reads keep their CPU.
+ *
+ * The timeout bounds how long a caller waits, not the hash. Neither BCrypt nor PBKDF2 checks for
+ * interrupts, so a hash that is already running finishes on its pool thread after the caller
+ * got its 503. A cancelled hash that is still queued is dropped. The pool size is therefore the
+ * real CPU bound. The timeout should stay well above one hash at the configured cost (about
+ * 50-100 ms per check at bcrypt strength 10, doubling with each step) times the queue depth
+ * per thread. Otherwise a burst times out callers whose hashes still run, and that wastes the work.
+ *
+ * Exported as executor.* metrics with name=passwordHashing (queued, active, completed),
+ * plus recipedb.password.hashing timers and a recipedb.password.hashing.rejected counter.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public static class SaturatedException extends ResponseStatusException {
+        SaturatedException() {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress, try again shortly");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return headers;
+        }
+    }
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "passwordHashing", List.of()).bindTo(meterRegistry);
+        this.encodeTimer = Timer.builder("recipedb.password.hashing").tag("op", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("recipedb.password.hashing").tag("op", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("recipedb.password.hashing.rejected")
+                .description("Hashing requests refused because the queue was full or the wait timed out")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    // cheap, parses the stored hash only
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SaturatedException();
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // dequeues it if it hasn't started; a running hash ignores the interrupt and completes
+            future.cancel(true);
+            rejected.increment();
+            throw new SaturatedException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.recipeDB.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    // recipe id -> RecipeDTO served by /api/recipes/r/byId/{id}
+    public static final String RECIPE_DETAIL = "recipeDetail";
+    // recipe id -> owner username, checked by RecipeSecurityService before every edit/delete
+    public static final String RECIPE_OWNER = "recipeOwner";
+    // username -> user id, for authenticated requests whose principal has no id
+    public static final String USER_ID = "userId";
+
+    @Value("${recipes.cache.detail.max-size:10000}")
+    private long detailMaxSize;
+
+    @Value("${recipes.cache.detail.ttl:PT10M}")
+    private Duration detailTtl;
+
+    @Value("${recipes.cache.owner.max-size:50000}")
+    private long ownerMaxSize;
+
+    @Value("${recipes.cache.owner.ttl:PT1H}")
+    private Duration ownerTtl;
+
+    @Value("${recipes.cache.user-id.max-size:10000}")
+    private long userIdMaxSize;
+
+    @Value("${recipes.cache.user-id.ttl:PT5M}")
+    private Duration userIdTtl;
+
+    /**
+     * Bounded Caffeine caches with hit/miss stats (exported by Actuator as cache.* metrics).
+     * The transaction-aware proxy delays evictions made inside a transaction until it commits,
+     * so a concurrent read can't re-cache the pre-commit state.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.registerCustomCache(RECIPE_DETAIL, Caffeine.newBuilder()
+                .maximumSize(detailMaxSize)
+                .expireAfterWrite(detailTtl)
+                .recordStats()
+                .build());
+        caffeine.registerCustomCache(RECIPE_OWNER, Caffeine.newBuilder()
+                .maximumSize(ownerMaxSize)
+                .expireAfterWrite(ownerTtl)
+                .recordStats()
+                .build());
+        caffeine.registerCustomCache(USER_ID, Caffeine.newBuilder()
+                .maximumSize(userIdMaxSize)
+                .expireAfterWrite(userIdTtl)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.recipeDB.config;
+
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.repository.RecipeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Conditional GETs for the public read endpoints. Before the controller runs, the ETag is
+ * derived from recipes.revision (see schema.sql): the recipe's own revision for a detail or
+ * comment page; for a listing, its newest revision plus whatever marks a recipe leaving it (the
+ * owner's recipe_count, the /all window's size and last id, the recipe_removals row for tags),
+ * all read from indexes or maintained rows. A matching If-None-Match is answered with 304 right
+ * here, so a hit costs that one statement and never builds or serializes DTOs.
+ *
+ * Listings and comment pages are read from the database after the ETag, so a write in between
+ * can only make the ETag older than the body, which costs the client one extra 200. The detail
+ * body may come from the recipeDetail cache instead, which can be behind the row: a write commits
+ * and bumps the revision before its eviction runs, and a read that started before the commit can
+ * put the old state back afterwards. So a cached detail older than the row is evicted here, and
+ * the controller replaces the ETag with {@link #recipeETag} of the body it actually serves. A
+ * stale body then goes out under its own older ETag and is never revalidated as current.
+ *
+ * The lookups run in a read-only transaction like the GET handlers, so with read replicas the
+ * request reads its ETag and its body from the same replica (see {@link ReplicaRoutingDataSource}).
+ */
+@Component
+public class HttpCachingInterceptor implements HandlerInterceptor {
+    static final String[] PATHS = {
+            "/api/recipes/all", "/api/recipes/tags", "/api/recipes/u/*", "/api/recipes/r/byId/**"
+    };
+
+    private final RecipeRepository recipeRepository;
+    private final Cache recipeDetailCache;
+    private final TransactionTemplate readOnly;
+    private final String cacheControl;
+    private final Counter notModified;
+    private final int allMaxResults;
+
+    public HttpCachingInterceptor(
+            RecipeRepository recipeRepository,
+            CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${recipes.http-cache.max-age:PT0S}") Duration maxAge,
+            @Value("${recipes.all.max-results:1000}") int allMaxResults,
+            MeterRegistry meterRegistry
+    ) {
+        this.recipeRepository = recipeRepository;
+        this.recipeDetailCache = cacheManager.getCache(CacheConfig.RECIPE_DETAIL);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.allMaxResults = allMaxResults;
+        // no max-age means browsers and the frontend revalidate every time, which is cheap now
+        CacheControl cc = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+        this.cacheControl = cc.cachePublic().getHeaderValue();
+        this.notModified = Counter.builder("recipedb.http_cache.not_modified")
+                .description("Conditional GETs answered with 304 before reaching the controller")
+                .register(meterRegistry);
+    }
+
+    public static String recipeETag(long revision) {
+        return "\"r" + revision + "\"";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) return true;
+        String etag = readOnly.execute(status -> etagFor(request));
+        // unknown recipe or bad parameters, the controller reports those
+        if (etag == null) return true;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            notModified.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private String etagFor(HttpServletRequest request) {
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        @SuppressWarnings("unchecked")
+        Map<String, String> vars = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pattern == null) return null;
+        // the summary view is a different representation of the same state
+        String view = "summary".equals(request.getParameter("view")) ? "s" : "f";
+
+        try {
+            return switch (pattern) {
+                case "/api/recipes/r/byId/{recipeID}" -> detailETag(Integer.parseInt(vars.get("recipeID")));
+                case "/api/recipes/r/byId/{recipeID}/comments" ->
+                        recipeRepository.findRevisionByRecipeID(Integer.parseInt(vars.get("recipeID")))
+                                .map(HttpCachingInterceptor::recipeETag)
+                                .orElse(null);
+                case "/api/recipes/all" -> "a" + view + recipeRepository.findCatalogVersion(allMaxResults);
+                case "/api/recipes/u/{username}" -> {
+                    String version = recipeRepository.findOwnerVersion(vars.get("username"));
+                    yield version == null ? null : "u" + view + version;
+                }
+                case "/api/recipes/tags" -> {
+                    String[] values = request.getParameterValues("tags");
+                    if (values == null) yield null;
+                    // ?tags=A,B and ?tags=A&tags=B name the same listing
+                    TreeSet<String> tags = new TreeSet<>();
+                    Arrays.stream(values).flatMap(v -> Arrays.stream(v.split(",")))
+                            .map(String::trim).filter(t -> !t.isEmpty())
+                            .forEach(t -> tags.add(Tag.valueOf(t).name()));
+                    yield tags.isEmpty() ? null
+                            : "t" + view + String.join(".", tags) + "-" + recipeRepository.findTagsVersion(tags);
+                }
+                default -> null;
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String detailETag(int recipeID) {
+        Long revision = recipeRepository.findRevisionByRecipeID(recipeID).orElse(null);
+        if (revision == null) return null;
+        // evictIfPresent is immediate even inside a transaction, unlike evict
+        if (recipeDetailCache != null && recipeDetailCache.get(recipeID, RecipeDTO.class) instanceof RecipeDTO cached
+                && !revision.equals(cached.revision())) {
+            recipeDetailCache.evictIfPresent(recipeID);
+        }
+        return recipeETag(revision);
+    }
+}
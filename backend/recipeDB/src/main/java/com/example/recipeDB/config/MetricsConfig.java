@@ -0,0 +1,21 @@
+package com.example.recipeDB.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hot-path metrics beyond what Actuator records on its own. Endpoint latency
+ * (http.server.requests), repository method timers (spring.data.repository.invocations),
+ * Hikari pool usage (hikaricp.*) and cache stats (cache.*) are auto-configured, their
+ * histograms are switched on in application.properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspector() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.recipeDB.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Opens GET and HEAD requests to read replicas (see {@link ReplicaRoutingDataSource}). Other
+ * methods stay on the primary for their reads too, so a write is never based on a stale row.
+ *
+ * After a {@link ReadYourWrites} handler the session remembers the primary's WAL position, and its
+ * later reads only use replicas that have replayed that far. While the handler runs the position
+ * is unknown, so the session's concurrent reads go to the primary.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReadRoutingInterceptor implements AsyncHandlerInterceptor {
+    public static final String SESSION_LSN = ReadRoutingInterceptor.class.getName() + ".LSN";
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpSession session = request.getSession(false);
+        if (readYourWrites(handler)) {
+            if (session != null) session.setAttribute(SESSION_LSN, Long.MAX_VALUE);
+        } else if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            Object lsn = session == null ? null : session.getAttribute(SESSION_LSN);
+            ReplicaRoutingDataSource.allowReplicas(lsn instanceof Long l ? l : 0);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingDataSource.primaryOnly();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRoutingDataSource.primaryOnly();
+        if (!readYourWrites(handler)) return;
+        HttpSession session = request.getSession(false);
+        if (session == null) return;
+        try {
+            session.setAttribute(SESSION_LSN, replicaRoutingDataSource.currentPrimaryLsn());
+        } catch (DataAccessException e) {
+            // without a position the session would be pinned to the primary for good
+            log.warn("Could not read the primary's WAL position after a write", e);
+            session.removeAttribute(SESSION_LSN);
+        } catch (IllegalStateException e) {
+            // session invalidated by the handler
+        }
+    }
+
+    private static boolean readYourWrites(Object handler) {
+        return handler instanceof HandlerMethod m && m.hasMethodAnnotation(ReadYourWrites.class);
+    }
+}
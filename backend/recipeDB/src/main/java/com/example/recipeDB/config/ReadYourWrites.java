@@ -0,0 +1,18 @@
+package com.example.recipeDB.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose writes the caller's session must see on its following reads. With read
+ * replicas configured, {@link ReadRoutingInterceptor} keeps that session's reads on replicas that
+ * have replayed the write, or on the primary until one has.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadYourWrites {
+}
@@ -0,0 +1,203 @@
+package com.example.recipeDB.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes connections between the primary and a pool of read replicas. A connection goes to a
+ * replica only for a read-only transaction on a thread that {@link #allowReplicas} was called on
+ * (GET and HEAD requests, see {@link ReadRoutingInterceptor}), and only to a replica that is
+ * healthy and has replayed at least the WAL position given there. Everything else, and every read
+ * when no replica qualifies, goes to the primary. The read paths are read-only transactions: the
+ * GET handlers and the ETag lookups of HttpCachingInterceptor. A request keeps reading from the
+ * first replica it was given while that one still qualifies, so its ETag never names a newer
+ * state than its body.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction manager asks for a connection
+ * before the transaction is marked read-only, the proxy only fetches one on the first statement.
+ *
+ * {@link #checkReplicas} polls every replica's replay position against the primary's. Per pool it
+ * publishes recipedb.datasource.replica.healthy, .lag and .lag_bytes, plus the number of
+ * connections routed to it (recipedb.datasource.connections.routed); replica Hikari pools report
+ * hikaricp.* like the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    private static final Duration CHECK_TIMEOUT = Duration.ofSeconds(2);
+    // minimum replay position a replica needs for this thread's reads, unset means primary only
+    private static final ThreadLocal<Long> MIN_REPLICA_LSN = new ThreadLocal<>();
+    // the replica this thread was last routed to since allowReplicas
+    private static final ThreadLocal<String> CURRENT_REPLICA = new ThreadLocal<>();
+
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter routedToPrimary;
+    private final Counter fallbacks;
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        final Counter routed;
+        volatile boolean healthy;
+        volatile long replayedLsn;
+        volatile double lagSeconds;
+        volatile long lagBytes;
+
+        Replica(String name, HikariDataSource dataSource, Counter routed) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setQueryTimeout((int) CHECK_TIMEOUT.toSeconds());
+            this.routed = routed;
+        }
+    }
+
+    public ReplicaRoutingDataSource(HikariDataSource primaryDataSource, List<HikariDataSource> replicas,
+                                    Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.maxLag = maxLag;
+        this.routedToPrimary = routedCounter(meterRegistry, PRIMARY);
+        this.fallbacks = Counter.builder("recipedb.datasource.replica_fallbacks")
+                .description("Replica-eligible reads sent to the primary because no replica was healthy and caught up")
+                .register(meterRegistry);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primaryDataSource);
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource.getPoolName(), dataSource, routedCounter(meterRegistry, dataSource.getPoolName()));
+            this.replicas.add(replica);
+            targets.put(replica.name, dataSource);
+            Gauge.builder("recipedb.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("pool", replica.name).register(meterRegistry);
+            TimeGauge.builder("recipedb.datasource.replica.lag", replica, TimeUnit.SECONDS, r -> r.lagSeconds)
+                    .tag("pool", replica.name).register(meterRegistry);
+            Gauge.builder("recipedb.datasource.replica.lag_bytes", replica, r -> r.lagBytes)
+                    .tag("pool", replica.name).baseUnit("bytes").register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primaryDataSource);
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("recipedb.datasource.connections.routed").tag("pool", pool).register(meterRegistry);
+    }
+
+    /**
+     * Lets read-only transactions on this thread use a replica that has replayed at least minLsn
+     * (0 for any healthy replica) until {@link #primaryOnly} is called.
+     */
+    public static void allowReplicas(long minLsn) {
+        MIN_REPLICA_LSN.set(minLsn);
+        CURRENT_REPLICA.remove();
+    }
+
+    public static void primaryOnly() {
+        MIN_REPLICA_LSN.remove();
+        CURRENT_REPLICA.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long minLsn = MIN_REPLICA_LSN.get();
+        if (minLsn == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            routedToPrimary.increment();
+            return PRIMARY;
+        }
+        String current = CURRENT_REPLICA.get();
+        for (Replica r : replicas) {
+            if (r.name.equals(current) && r.healthy && r.replayedLsn >= minLsn) {
+                r.routed.increment();
+                return r.name;
+            }
+        }
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica r = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (r.healthy && r.replayedLsn >= minLsn) {
+                r.routed.increment();
+                CURRENT_REPLICA.set(r.name);
+                return r.name;
+            }
+        }
+        fallbacks.increment();
+        routedToPrimary.increment();
+        return PRIMARY;
+    }
+
+    // the primary's current WAL position, what a replica must have replayed to show everything committed so far
+    public long currentPrimaryLsn() {
+        return parseLsn(primary.queryForObject("select pg_current_wal_lsn()::text", String.class));
+    }
+
+    /**
+     * A replica is healthy if it answers within CHECK_TIMEOUT and is at most maxLag behind. Lag is
+     * the time since the replica last replayed a transaction while it is behind the primary, 0 once
+     * it has caught up. A server that is not in recovery (e.g. the primary's own URL configured as
+     * a replica for local testing) reports its current position and is never behind.
+     */
+    @Scheduled(fixedDelayString = "${recipes.datasource.replica-check-interval:PT1S}")
+    public void checkReplicas() {
+        long primaryLsn;
+        try {
+            primaryLsn = currentPrimaryLsn();
+        } catch (DataAccessException e) {
+            log.warn("Replica check could not read the primary's WAL position", e);
+            return;
+        }
+        for (Replica r : replicas) {
+            boolean healthy;
+            try {
+                Map<String, Object> row = r.jdbcTemplate.queryForMap("""
+                        select case when pg_is_in_recovery() then pg_last_wal_replay_lsn()
+                                    else pg_current_wal_lsn() end::text as lsn,
+                               extract(epoch from now() - pg_last_xact_replay_timestamp())::float8 as since_replay
+                        """);
+                String lsn = (String) row.get("lsn");
+                r.replayedLsn = lsn == null ? 0 : parseLsn(lsn);
+                r.lagBytes = Math.max(0, primaryLsn - r.replayedLsn);
+                Number sinceReplay = (Number) row.get("since_replay");
+                r.lagSeconds = r.lagBytes == 0 ? 0 : sinceReplay == null ? Double.MAX_VALUE : sinceReplay.doubleValue();
+                healthy = r.lagSeconds <= maxLag.toMillis() / 1000.0;
+            } catch (DataAccessException e) {
+                log.debug("Replica {} check failed", r.name, e);
+                healthy = false;
+            }
+            if (healthy != r.healthy) {
+                log.info("Replica {} is now {} (lag {} s, {} bytes)", r.name, healthy ? "healthy" : "unhealthy",
+                        r.lagSeconds, r.lagBytes);
+            }
+            r.healthy = healthy;
+        }
+    }
+
+    // "16/B374D848" -> 0x16B374D848
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    public void close() {
+        for (Replica r : replicas) r.dataSource.close();
+    }
+}
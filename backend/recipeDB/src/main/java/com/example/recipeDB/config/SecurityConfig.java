@@ -1,5 +1,6 @@
 package com.example.recipeDB.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,13 +12,26 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.LdapShaPasswordEncoder;
+import org.springframework.security.crypto.password.Md4PasswordEncoder;
+import org.springframework.security.crypto.password.MessageDigestPasswordEncoder;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.password.StandardPasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.web.cors.CorsConfiguration;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -37,15 +51,59 @@ public class SecurityConfig {
         this.userDetailsService = userDetailsService;
     }
 
+    /**
+     * New hashes use recipes.password.encode-id. A successful login with a hash stored under
+     * another id, or with a lower bcrypt strength, is re-encoded and saved through
+     * CustomUserDetailsService.updatePassword, so cost changes roll out without a migration.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${recipes.password.encode-id:bcrypt}") String encodeId,
+            @Value("${recipes.password.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${recipes.password.hashing.threads:0}") int threads,
+            @Value("${recipes.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${recipes.password.hashing.timeout:PT5S}") Duration timeout,
+            MeterRegistry meterRegistry
+    ) {
+        Map<String, PasswordEncoder> encoders = factoryEncoders();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        if (!encoders.containsKey(encodeId)) {
+            throw new IllegalStateException("Unknown recipes.password.encode-id " + encodeId);
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encodeId, encoders);
+        // ids a later Spring Security adds to its factory still match
+        delegating.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return new BoundedPasswordEncoder(delegating,
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity, timeout,
+                meterRegistry);
+    }
+
+    // the encoders of PasswordEncoderFactories.createDelegatingPasswordEncoder(), which does not expose its map.
+    // The deprecated ones only check hashes stored under their id; {noop} is how the seed accounts are stored.
+    @SuppressWarnings("deprecation")
+    private static Map<String, PasswordEncoder> factoryEncoders() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder());
+        encoders.put("ldap", new LdapShaPasswordEncoder());
+        encoders.put("MD4", new Md4PasswordEncoder());
+        encoders.put("MD5", new MessageDigestPasswordEncoder("MD5"));
+        encoders.put("noop", NoOpPasswordEncoder.getInstance());
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_5());
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("scrypt", SCryptPasswordEncoder.defaultsForSpringSecurity_v4_1());
+        encoders.put("scrypt@SpringSecurity_v5_8", SCryptPasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("SHA-1", new MessageDigestPasswordEncoder("SHA-1"));
+        encoders.put("SHA-256", new MessageDigestPasswordEncoder("SHA-256"));
+        encoders.put("sha256", new StandardPasswordEncoder());
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_2());
+        encoders.put("argon2@SpringSecurity_v5_8", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        return encoders;
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
         var auth = http.getSharedObject(AuthenticationManagerBuilder.class);
-        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
+        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
         return auth.build();
     }
 
@@ -69,10 +127,13 @@ public class SecurityConfig {
                 }))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(SWAGGER_WHITELIST).permitAll()
+                        // scraped by Prometheus on the management port (management.server.port)
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/recipes/u/**").permitAll()
                         .requestMatchers("/api/recipes/r/byId/**").permitAll()
                         .requestMatchers("/api/user/create", "/api/recipes/all", "/api/recipes/tags").permitAll()
+                        .requestMatchers("/api/recipes/feed", "/api/recipes/trending", "/api/recipes/filter", "/api/recipes/pantry", "/api/recipes/search").permitAll()
                         .anyRequest().authenticated()
                 )
                 .httpBasic(AbstractHttpConfigurer::disable)
@@ -0,0 +1,22 @@
+package com.example.recipeDB.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Optional;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final HttpCachingInterceptor httpCachingInterceptor;
+    // only with read replicas configured, see ReadReplicaConfig
+    private final Optional<ReadRoutingInterceptor> readRoutingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        readRoutingInterceptor.ifPresent(registry::addInterceptor);
+        registry.addInterceptor(httpCachingInterceptor).addPathPatterns(HttpCachingInterceptor.PATHS);
+    }
+}
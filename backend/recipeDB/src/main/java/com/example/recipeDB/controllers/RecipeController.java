@@ -1,26 +1,59 @@
 package com.example.recipeDB.controllers;
 
 
+import com.example.recipeDB.config.HttpCachingInterceptor;
+import com.example.recipeDB.config.ReadYourWrites;
 import com.example.recipeDB.dto.CommentDTO;
+import com.example.recipeDB.dto.ImportResultDTO;
+import com.example.recipeDB.dto.PantryMatchDTO;
 import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipePageDTO;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.dto.SimilarRecipeDTO;
+import com.example.recipeDB.dto.UserProfileDTO;
 import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.RecipeSort;
 import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.CommentCursor;
+import com.example.recipeDB.helper.EnumMasks;
+import com.example.recipeDB.helper.FeedCursor;
 import com.example.recipeDB.helper.Utils;
 import com.example.recipeDB.models.Comment;
 import com.example.recipeDB.models.Recipe;
-import com.example.recipeDB.models.RecipeUpvote;
 import com.example.recipeDB.models.User;
 import com.example.recipeDB.repository.CommentRepository;
 import com.example.recipeDB.repository.RecipeRepository;
-import com.example.recipeDB.repository.RecipeUpvoteRepository;
 import com.example.recipeDB.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.CurrentUserService;
+import com.example.recipeDB.service.RecipeExportService;
+import com.example.recipeDB.service.RecipeImportService;
+import com.example.recipeDB.service.RecipeService;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import com.example.recipeDB.service.SimilarRecipeIndex;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/recipes")
@@ -29,18 +62,52 @@ public class RecipeController {
     private final RecipeRepository recipeRepository;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
-    private final RecipeUpvoteRepository recipeUpvoteRepository;
+    private final RecipeUpvoteService recipeUpvoteService;
+    private final RecipeFilterIndex recipeFilterIndex;
+    private final RecipeImportService recipeImportService;
+    private final RecipeExportService recipeExportService;
+    private final CurrentUserService currentUserService;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    private final RecipeService recipeService;
+
+    @Value("${recipes.all.max-results:1000}")
+    private int allMaxResults;
+
+    @Value("${recipes.feed.default-page-size:20}")
+    private int feedDefaultPageSize;
+
+    @Value("${recipes.feed.max-page-size:100}")
+    private int feedMaxPageSize;
+
+    @Value("${recipes.comments.page-size:20}")
+    private int commentsPageSize;
+
+    @Value("${recipes.comments.max-page-size:100}")
+    private int commentsMaxPageSize;
+
+    @Value("${recipes.search.max-pages:50}")
+    private int searchMaxPages;
 
     public RecipeController(RecipeRepository recipeRepository, UserRepository userRepository,
-                            CommentRepository commentRepository, RecipeUpvoteRepository recipeUpvoteRepository) {
+                            CommentRepository commentRepository, RecipeUpvoteService recipeUpvoteService,
+                            RecipeFilterIndex recipeFilterIndex, RecipeImportService recipeImportService,
+                            RecipeExportService recipeExportService, CurrentUserService currentUserService,
+                            SimilarRecipeIndex similarRecipeIndex, RecipeService recipeService) {
         this.recipeRepository = recipeRepository;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
-        this.recipeUpvoteRepository = recipeUpvoteRepository;
+        this.recipeUpvoteService = recipeUpvoteService;
+        this.recipeFilterIndex = recipeFilterIndex;
+        this.recipeImportService = recipeImportService;
+        this.recipeExportService = recipeExportService;
+        this.currentUserService = currentUserService;
+        this.similarRecipeIndex = similarRecipeIndex;
+        this.recipeService = recipeService;
     }
 
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/create")
+    @ReadYourWrites
     public String createRecipe(
         @RequestParam String title,
         @RequestParam String description,
@@ -55,9 +122,6 @@ public class RecipeController {
         Authentication auth
     ) {
         Recipe recipe = new Recipe();
-        User user = userRepository.findByUsername(auth.getName())
-                .orElseThrow( () -> new IllegalStateException("User not found"));
-
         recipe.setTitle(title);
         recipe.setDescription(description);
         recipe.setPrepTime(prepTime);
@@ -68,43 +132,219 @@ public class RecipeController {
         recipe.setTags(tags);
         recipe.setImageUrl(imageUrl);
         recipe.setIngredients(ingredients);
-        recipe.setOwner(user);
+        recipe.setOwner(currentUserService.reference(auth));
         recipeRepository.save(recipe);
+        recipeFilterIndex.put(recipe.getRecipeID(), tags, ingredients);
+        similarRecipeIndex.put(recipe.getRecipeID(), tags, ingredients);
         return "Recipe created";
     }
 
+    /**
+     * Bulk import of recipes owned by the caller, streamed from the request body as NDJSON
+     * (one recipe object per line) or CSV with a header row. The body may be gzip-compressed
+     * (Content-Encoding: gzip). Invalid rows are skipped and reported, see {@link RecipeImportService}.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportResultDTO importRecipes(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            InputStream body,
+            Authentication auth
+    ) throws IOException {
+        RecipeImportService.Format format = contentType.startsWith("text/csv")
+                ? RecipeImportService.Format.CSV : RecipeImportService.Format.NDJSON;
+        InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+        try {
+            return recipeImportService.importRecipes(in, format, currentUserService.userID(auth));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * The whole catalog as NDJSON in recipeID order, streamed from a database cursor.
+     * Gzipped when the client accepts it. To resume, pass the last recipeID received as after.
+     */
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "0") int after,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream zipped = new GZIPOutputStream(out, 64 * 1024)) {
+                    recipeExportService.export(after, zipped);
+                }
+            } else {
+                recipeExportService.export(after, out);
+            }
+        };
+        var response = ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson"));
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        return response.body(body);
+    }
+
+    /**
+     * @deprecated unbounded listing kept for existing clients, capped at recipes.all.max-results.
+     * Use {@link #feed} instead.
+     */
+    @Deprecated
+    @Transactional(readOnly = true)
     @GetMapping("/all")
     public List<RecipeDTO> all() {
-        return recipeRepository.findAll().stream()
-                .map(r -> {
-                    long upvoteCount = recipeUpvoteRepository.countByRecipe(r);
-                    return Utils.mapToRecipeDTO(r, upvoteCount);
-                })
-                .toList();
+        return toRecipeDTOs(recipeRepository.findAllByOrderByRecipeIDAsc(Limit.of(allMaxResults)));
     }
 
+    @Deprecated
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/all", params = "view=summary")
+    public List<RecipeSummaryDTO> allSummaries() {
+        return toSummaries(recipeRepository.findSummaries(Limit.of(allMaxResults)));
+    }
+
+    @Transactional(readOnly = true)
+    @GetMapping("/feed")
+    public RecipePageDTO<RecipeSummaryDTO> feed(
+            @RequestParam(defaultValue = "NEWEST") RecipeSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = size == null ? feedDefaultPageSize : Math.max(1, Math.min(size, feedMaxPageSize));
+        FeedCursor after;
+        try {
+            after = cursor == null ? FeedCursor.first(sort) : FeedCursor.decode(cursor, sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        List<RecipeRepository.SummaryRow> page = switch (sort) {
+            case NEWEST -> recipeRepository.findNewestPage(after.id(), pageSize);
+            case TOP -> recipeRepository.findTopPage(after.key(), after.id(), pageSize);
+            case QUICKEST -> recipeRepository.findQuickestPage(after.key(), after.id(), pageSize);
+        };
+        String nextCursor = page.size() < pageSize
+                ? null
+                : FeedCursor.after(sort, page.get(page.size() - 1)).encode();
+        return new RecipePageDTO<>(toSummaries(page), nextCursor);
+    }
+
+    // highest time-decayed upvote/comment activity first, see TrendingService
+    @Transactional(readOnly = true)
+    @GetMapping("/trending")
+    public List<RecipeSummaryDTO> trending(@RequestParam(required = false) Integer limit) {
+        int n = limit == null ? feedDefaultPageSize : Math.max(1, Math.min(limit, feedMaxPageSize));
+        return toSummaries(recipeRepository.findTrendingPage(n));
+    }
+
+    @Transactional(readOnly = true)
     @GetMapping("/r/byId/{recipeID}")
-    public RecipeDTO getRecipeById(@PathVariable int recipeID) {
-        Recipe recipe = recipeRepository.findById(recipeID).orElse(null);
-        assert recipe != null;
-        long upvoteCount = recipeUpvoteRepository.countByRecipe(recipe);
-        return Utils.mapToRecipeDTO(recipe, upvoteCount);
+    public RecipeDTO getRecipeById(@PathVariable int recipeID, HttpServletResponse response) {
+        RecipeDTO recipe = recipeService.detail(recipeID, commentsPageSize);
+        if (recipe == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe with ID " + recipeID + " does not exist.");
+        }
+        // name the body actually served: a cached one can be older than the revision the interceptor read
+        response.setHeader(HttpHeaders.ETAG, HttpCachingInterceptor.recipeETag(recipe.revision()));
+        return recipe;
+    }
+
+    // newest first, pass nextCursor back as cursor for older comments
+    @Transactional(readOnly = true)
+    @GetMapping("/r/byId/{recipeID}/comments")
+    public RecipePageDTO<CommentDTO> getComments(
+            @PathVariable int recipeID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = size == null ? commentsPageSize : Math.max(1, Math.min(size, commentsMaxPageSize));
+        try {
+            return recipeService.commentPage(recipeID, cursor == null ? null : CommentCursor.decode(cursor), pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Recipes sharing the most tags and ingredients with this one (Jaccard similarity), most
+     * similar first. Looked up in {@link SimilarRecipeIndex}, only the results hit the database.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/r/byId/{recipeID}/similar")
+    public List<SimilarRecipeDTO> getSimilarRecipes(
+            @PathVariable int recipeID,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (!similarRecipeIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Similar-recipe index is not ready");
+        }
+        int k = limit == null ? SimilarRecipeIndex.NEIGHBOURS : Math.max(1, Math.min(limit, SimilarRecipeIndex.NEIGHBOURS));
+        int[] ids = new int[k];
+        double[] similarity = new double[k];
+        int n = similarRecipeIndex.similar(recipeID, ids, similarity);
+        if (n == 0) return List.of();
+
+        Map<Integer, RecipeSummaryDTO> byId = new HashMap<>();
+        for (var r : toSummaries(recipeRepository.findSummariesByRecipeIDs(Arrays.stream(ids, 0, n).boxed().toList()))) {
+            byId.put(r.recipeID(), r);
+        }
+        List<SimilarRecipeDTO> similar = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            RecipeSummaryDTO r = byId.get(ids[i]);
+            if (r == null) continue; // deleted since the lookup
+            similar.add(new SimilarRecipeDTO(r, similarity[i]));
+        }
+        return similar;
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/u/{username}")
     public List<RecipeDTO> getRecipesByUsername(@PathVariable String username) {
         User user = userRepository.findByUsername(username).orElse(null);
         assert user != null;
-        return user.getRecipes().stream()
-                .map(r -> {
-                    long upvoteCount = recipeUpvoteRepository.countByRecipe(r);
-                    return Utils.mapToRecipeDTO(r, upvoteCount);
-                })
-                .toList();
+        return toRecipeDTOs(user.getRecipes());
+    }
+
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/u/{username}", params = "view=summary")
+    public List<RecipeSummaryDTO> getRecipeSummariesByUsername(@PathVariable String username) {
+        return toSummaries(recipeRepository.findSummariesByOwnerUsername(username));
+    }
+
+    /**
+     * A user's totals from user_stats (kept current by triggers, see schema.sql) and a page of
+     * their recipes, newest first; pass nextCursor back as cursor for older ones.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/u/{username}/profile")
+    public UserProfileDTO getProfile(
+            @PathVariable String username,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        int pageSize = size == null ? feedDefaultPageSize : Math.max(1, Math.min(size, feedMaxPageSize));
+        FeedCursor after;
+        try {
+            after = cursor == null ? FeedCursor.first(RecipeSort.NEWEST) : FeedCursor.decode(cursor, RecipeSort.NEWEST);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        UserRepository.ProfileRow profile = userRepository.findProfileByUsername(username).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User " + username + " does not exist."));
+
+        List<RecipeRepository.SummaryRow> page = recipeRepository.findOwnerNewestPage(profile.getUserID(), after.id(), pageSize);
+        String nextCursor = page.size() < pageSize
+                ? null
+                : FeedCursor.after(RecipeSort.NEWEST, page.get(page.size() - 1)).encode();
+        return new UserProfileDTO(profile.getUsername(), profile.getRecipeCount(), profile.getUpvotesReceived(),
+                profile.getCommentCount(), profile.getAverageDifficulty(), new RecipePageDTO<>(toSummaries(page), nextCursor));
     }
 
     @PreAuthorize("@recipeSecurityService.isOwner(#recipeID, authentication)")
     @PutMapping("/r/{recipeID}/edit")
+    @ReadYourWrites
     public ResponseEntity<Recipe> editRecipe(
             @PathVariable int recipeID,
             @RequestParam(required = false) String title,
@@ -118,21 +358,18 @@ public class RecipeController {
             @RequestParam(required = false) String imageUrl,
             @RequestParam(required = false) List<Ingredient> ingredients
     ) {
-        Recipe recipe = recipeRepository.findById(recipeID).orElseThrow(
-                () -> new IllegalStateException("Recipe with ID " + recipeID + " does not exist.")
-        );
-        if(title != null) recipe.setTitle(title);
-        if(description != null) recipe.setDescription(description);
-        if(prepTime != null) recipe.setPrepTime(prepTime);
-        if(cookTime != null) recipe.setCookTime(cookTime);
-        if(servings != null) recipe.setServings(servings);
-        if(difficulty != null) recipe.setDifficulty(difficulty);
-        if(steps != null) recipe.setSteps(steps);
-        if(tags != null) recipe.setTags(tags);
-        if(imageUrl != null) recipe.setImageUrl(imageUrl);
-        if(ingredients != null) recipe.setIngredients(ingredients);
-
-        recipeRepository.save(recipe);
+        Recipe recipe = recipeService.edit(recipeID, r -> {
+            if(title != null) r.setTitle(title);
+            if(description != null) r.setDescription(description);
+            if(prepTime != null) r.setPrepTime(prepTime);
+            if(cookTime != null) r.setCookTime(cookTime);
+            if(servings != null) r.setServings(servings);
+            if(difficulty != null) r.setDifficulty(difficulty);
+            if(steps != null) r.setSteps(steps);
+            if(tags != null) r.setTags(tags);
+            if(imageUrl != null) r.setImageUrl(imageUrl);
+            if(ingredients != null) r.setIngredients(ingredients);
+        });
         return ResponseEntity.ok(recipe);
     }
 
@@ -141,90 +378,172 @@ public class RecipeController {
     public ResponseEntity<?> deleteRecipe(
             @PathVariable int recipeID
     ) {
-        Recipe recipe = recipeRepository.findById(recipeID).orElse(null);
-        if (recipe == null) {
+        if (!recipeService.delete(recipeID)) {
             return ResponseEntity.notFound().build();
         }
-        recipeRepository.delete(recipe);
         return ResponseEntity.ok("Deleted recipe with ID " + recipeID);
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/tags")
     public List<RecipeDTO> getByTags(@RequestParam List<Tag> tags) {
         if (tags == null || tags.isEmpty()) return List.of();
-        return recipeRepository.findDistinctByTagsIn(tags)
-                .stream()
-                .map(r -> {
-                    long upvoteCount = recipeUpvoteRepository.countByRecipe(r);
-                    return Utils.mapToRecipeDTO(r, upvoteCount);
-        }).toList();
+        return toRecipeDTOs(recipeRepository.findDistinctByTagsIn(tags));
+    }
+
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/tags", params = "view=summary")
+    public List<RecipeSummaryDTO> getSummariesByTags(@RequestParam List<Tag> tags) {
+        if (tags == null || tags.isEmpty()) return List.of();
+        return toSummaries(recipeRepository.findSummariesByTagsIn(tags));
+    }
+
+    /**
+     * Full-text search over title, description and steps with prefix matching on the last word,
+     * ranked by ts_rank. Optional tags narrow it to recipes with any of them. Paged by offset,
+     * nextCursor is the next page number.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/search")
+    public RecipePageDTO<RecipeSummaryDTO> search(
+            @RequestParam String q,
+            @RequestParam(required = false) List<Tag> tags,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size
+    ) {
+        String tsQuery = Utils.toPrefixTsQuery(q);
+        if (tsQuery == null) return new RecipePageDTO<>(List.of(), null);
+        int pageSize = size == null ? feedDefaultPageSize : Math.max(1, Math.min(size, feedMaxPageSize));
+        if (page < 0 || page >= searchMaxPages) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be between 0 and " + (searchMaxPages - 1));
+        }
+
+        var rows = tags == null || tags.isEmpty()
+                ? recipeRepository.search(tsQuery, pageSize, page * pageSize)
+                : recipeRepository.searchWithTags(tsQuery, tags.stream().map(Tag::name).toList(), pageSize, page * pageSize);
+        String next = rows.size() < pageSize || page + 1 >= searchMaxPages ? null : String.valueOf(page + 1);
+        return new RecipePageDTO<>(toSummaries(rows), next);
+    }
+
+    /**
+     * Any/all/none filtering over tags and ingredients, answered from the in-memory
+     * {@link RecipeFilterIndex}. Results are in recipe id order, pass nextCursor back as cursor.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/filter")
+    public RecipePageDTO<RecipeSummaryDTO> filter(
+            @RequestParam(required = false) List<Tag> anyTags,
+            @RequestParam(required = false) List<Tag> allTags,
+            @RequestParam(required = false) List<Tag> noneTags,
+            @RequestParam(required = false) List<Ingredient> anyIngredients,
+            @RequestParam(required = false) List<Ingredient> allIngredients,
+            @RequestParam(required = false) List<Ingredient> noneIngredients,
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        if (!recipeFilterIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Recipe filter index is not ready");
+        }
+        int pageSize = size == null ? feedDefaultPageSize : Math.max(1, Math.min(size, feedMaxPageSize));
+        var f = RecipeFilterIndex.Filter.of(anyTags, allTags, noneTags, anyIngredients, allIngredients, noneIngredients);
+
+        int[] ids = new int[pageSize];
+        int n = recipeFilterIndex.filter(f, cursor == null ? 0 : cursor, ids);
+        if (n == 0) return new RecipePageDTO<>(List.of(), null);
+
+        var page = toSummaries(recipeRepository.findSummariesByRecipeIDs(
+                Arrays.stream(ids, 0, n).boxed().toList()));
+        return new RecipePageDTO<>(page, n < pageSize ? null : String.valueOf(ids[n - 1]));
+    }
+
+    /**
+     * Recipes ranked by how few of their ingredients are missing from the pantry, optionally
+     * constrained by tags. Answered from {@link RecipeFilterIndex}, only the top results hit the database.
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/pantry")
+    public List<PantryMatchDTO> pantry(
+            @RequestParam List<Ingredient> ingredients,
+            @RequestParam(required = false) List<Tag> anyTags,
+            @RequestParam(required = false) List<Tag> allTags,
+            @RequestParam(required = false) List<Tag> noneTags,
+            @RequestParam(required = false) List<Ingredient> noneIngredients,
+            @RequestParam(required = false) Integer maxMissing,
+            @RequestParam(required = false) Integer limit
+    ) {
+        if (!recipeFilterIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Recipe filter index is not ready");
+        }
+        int k = limit == null ? feedDefaultPageSize : Math.max(1, Math.min(limit, feedMaxPageSize));
+        long pantry = EnumMasks.ingredientMask(ingredients);
+        var f = RecipeFilterIndex.Filter.of(anyTags, allTags, noneTags, null, null, noneIngredients);
+
+        int[] ids = new int[k];
+        int n = recipeFilterIndex.pantryMatch(pantry, f, maxMissing == null ? Integer.MAX_VALUE : maxMissing, ids);
+        if (n == 0) return List.of();
+
+        Map<Integer, RecipeSummaryDTO> byId = new HashMap<>();
+        for (var r : toSummaries(recipeRepository.findSummariesByRecipeIDs(Arrays.stream(ids, 0, n).boxed().toList()))) {
+            byId.put(r.recipeID(), r);
+        }
+        List<PantryMatchDTO> matches = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            RecipeSummaryDTO r = byId.get(ids[i]);
+            if (r == null) continue; // deleted since the scan
+            matches.add(PantryMatchDTO.of(r, pantry));
+        }
+        return matches;
     }
 
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/r/{recipeID}/comment")
+    @ReadYourWrites
     public ResponseEntity<CommentDTO> addComment(
             @PathVariable int recipeID,
             @RequestParam String text,
             Authentication auth
     ) {
-        Recipe recipe = recipeRepository.findById(recipeID).orElseThrow(
-                () -> new IllegalStateException("Recipe with ID " + recipeID + " does not exist.")
-        );
-        User user = userRepository.findByUsername(auth.getName())
-                .orElseThrow( () -> new IllegalStateException("User not found"));
-
-        Comment comment = new Comment();
-        comment.setText(text);
-        comment.setRecipe(recipe);
-        comment.setAuthor(user);
-        Comment saved = commentRepository.save(comment);
+        Comment saved = recipeService.addComment(recipeID, text, currentUserService.reference(auth));
 
+        // the author is an unloaded reference, take the name from the principal
         CommentDTO response = new CommentDTO(
                 saved.getId(),
                 saved.getRecipe().getRecipeID(),
                 saved.getText(),
-                saved.getAuthor().getUsername()
+                auth.getName(),
+                saved.getCreatedAt()
         );
 
         return ResponseEntity.ok(response);
     }
 
     @PreAuthorize("isAuthenticated()")
-    @Transactional
     @PostMapping("/r/{recipeID}/upvote")
     public ResponseEntity<?> toggleUpvote(
             @PathVariable int recipeID,
             Authentication auth
     ) {
-        Recipe recipe = recipeRepository.findById(recipeID)
-                .orElseThrow(() -> new IllegalStateException(
-                        "Recipe with ID " + recipeID + " not found"));
-
-        User user = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new IllegalStateException("User not found"));
-
-        var existingOpt = recipeUpvoteRepository.findByRecipeAndUser(recipe, user);
-
-        final boolean nowUpvoted;
-        if (existingOpt.isPresent()) {
-            recipeUpvoteRepository.delete(existingOpt.get());
-            nowUpvoted = false;
-        } else {
-            RecipeUpvote upvote = new RecipeUpvote();
-            upvote.setRecipe(recipe);
-            upvote.setUser(user);
-            recipeUpvoteRepository.save(upvote);
-            nowUpvoted = true;
-        }
-
-        long newCount = recipeUpvoteRepository.countByRecipe(recipe);
+        var result = recipeUpvoteService.toggle(recipeID, currentUserService.userID(auth));
 
         return ResponseEntity.ok(
                 java.util.Map.of(
-                        "upvotes", newCount,
-                        "upvoted", nowUpvoted
+                        "upvotes", result.upvotes(),
+                        "upvoted", result.upvoted()
                 )
         );
     }
 
+    private List<RecipeDTO> toRecipeDTOs(List<Recipe> recipes) {
+        if (recipes.isEmpty()) return List.of();
+        return Utils.mapToRecipeDTOs(recipes,
+                commentRepository.countsByRecipeIDs(recipes.stream().map(Recipe::getRecipeID).toList()));
+    }
+
+    // list views (?view=summary) cost two statements: the summary rows and their tags/ingredients
+    private List<RecipeSummaryDTO> toSummaries(List<RecipeRepository.SummaryRow> rows) {
+        if (rows.isEmpty()) return List.of();
+        var enumRows = recipeRepository.findEnumRows(rows.stream().map(RecipeRepository.SummaryRow::getRecipeID).toList());
+        return Utils.mapToRecipeSummaries(rows, enumRows);
+    }
+
 }
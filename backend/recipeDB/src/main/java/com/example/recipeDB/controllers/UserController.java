@@ -3,6 +3,7 @@ package com.example.recipeDB.controllers;
 import com.example.recipeDB.models.User;
 import com.example.recipeDB.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
@@ -40,15 +41,18 @@ public class UserController {
         return "User created";
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/all")
     public Iterable<User> getUsers() {
         return userRepository.findAll();
     }
+    @Transactional(readOnly = true)
     @GetMapping("/i/{id}")
     public User getUserById(@PathVariable int id) {
         return userRepository.findById(id).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/u/{username}")
     public Optional<User> getUserByUsername(@PathVariable String username) {
         return userRepository.findByUsername(username);
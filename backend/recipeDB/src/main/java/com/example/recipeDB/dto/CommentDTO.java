@@ -1,9 +1,12 @@
 package com.example.recipeDB.dto;
 
+import java.time.Instant;
+
 public record CommentDTO (
         Integer commentID,
         Integer recipeID,
         String content,
-        String commenterUsername
+        String commenterUsername,
+        Instant createdAt
 )
 {}
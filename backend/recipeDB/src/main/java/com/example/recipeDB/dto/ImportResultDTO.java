@@ -0,0 +1,15 @@
+package com.example.recipeDB.dto;
+
+import java.util.List;
+
+public record ImportResultDTO(
+        long imported,
+        long rejected,
+        List<RowError> errors,
+        boolean errorsTruncated,
+        long millis,
+        double rowsPerSecond
+) {
+    // row is 1-based and counts data rows only, not the CSV header
+    public record RowError(long row, String message) {}
+}
@@ -0,0 +1,18 @@
+package com.example.recipeDB.dto;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.helper.EnumMasks;
+
+import java.util.List;
+
+public record PantryMatchDTO(
+        RecipeSummaryDTO recipe,
+        Integer missingCount,
+        List<Ingredient> missingIngredients
+) {
+    // missing ingredients in Ingredient declaration order, whatever order the recipe lists them in
+    public static PantryMatchDTO of(RecipeSummaryDTO recipe, long pantry) {
+        List<Ingredient> missing = EnumMasks.ingredients(EnumMasks.ingredientMask(recipe.ingredients()) & ~pantry);
+        return new PantryMatchDTO(recipe, missing.size(), missing);
+    }
+}
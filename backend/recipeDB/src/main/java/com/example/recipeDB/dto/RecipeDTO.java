@@ -2,7 +2,7 @@ package com.example.recipeDB.dto;
 
 import com.example.recipeDB.enums.Ingredient;
 import com.example.recipeDB.enums.Tag;
-import com.example.recipeDB.models.Comment;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.List;
 
@@ -20,5 +20,12 @@ public record RecipeDTO(
         List<Tag> tags,
         List<Ingredient> ingredients,
         String ownerUsername,
-        List<CommentDTO> comments
+        Integer commentCount,
+        // the newest page of comments on the detail view, empty in listings; the rest
+        // comes from /api/recipes/r/byId/{id}/comments?cursor=commentsNextCursor
+        List<CommentDTO> comments,
+        String commentsNextCursor,
+        // recipes.revision the body was built from, the detail ETag (see HttpCachingInterceptor)
+        @JsonIgnore
+        Long revision
 ) {}
@@ -0,0 +1,23 @@
+package com.example.recipeDB.dto;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+
+import java.util.List;
+
+// one NDJSON line of /api/recipes/export, a RecipeDTO without comments
+public record RecipeExportDTO(
+        Integer recipeID,
+        String title,
+        String description,
+        Integer prepTime,
+        Integer cookTime,
+        Integer servings,
+        Integer difficulty,
+        Integer upvotes,
+        String steps,
+        String imageUrl,
+        List<Tag> tags,
+        List<Ingredient> ingredients,
+        String ownerUsername
+) {}
@@ -0,0 +1,9 @@
+package com.example.recipeDB.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record RecipePageDTO<T>(
+        List<T> items,
+        String nextCursor
+) {}
@@ -0,0 +1,22 @@
+package com.example.recipeDB.dto;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+
+import java.util.List;
+
+// card/list view of a recipe, same field names as RecipeDTO minus steps and comments
+public record RecipeSummaryDTO(
+        Integer recipeID,
+        String title,
+        String description,
+        Integer prepTime,
+        Integer cookTime,
+        Integer servings,
+        Integer difficulty,
+        Integer upvotes,
+        String imageUrl,
+        List<Tag> tags,
+        List<Ingredient> ingredients,
+        String ownerUsername
+) {}
@@ -0,0 +1,6 @@
+package com.example.recipeDB.dto;
+
+public record SimilarRecipeDTO(
+        RecipeSummaryDTO recipe,
+        Double similarity
+) {}
@@ -0,0 +1,11 @@
+package com.example.recipeDB.dto;
+
+// averageDifficulty is null when none of the user's recipes has a difficulty
+public record UserProfileDTO(
+        String username,
+        Integer recipeCount,
+        Long upvotesReceived,
+        Integer commentCount,
+        Double averageDifficulty,
+        RecipePageDTO<RecipeSummaryDTO> recipes
+) {}
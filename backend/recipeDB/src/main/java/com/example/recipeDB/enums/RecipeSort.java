@@ -0,0 +1,7 @@
+package com.example.recipeDB.enums;
+
+public enum RecipeSort {
+    NEWEST,
+    TOP,
+    QUICKEST
+}
@@ -0,0 +1,37 @@
+package com.example.recipeDB.helper;
+
+import com.example.recipeDB.repository.CommentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Keyset position in a recipe's comments (newest first): created_at and id of the last
+ * comment returned, as an opaque url-safe string.
+ */
+public record CommentCursor(Instant createdAt, int id) {
+
+    public static CommentCursor after(CommentRepository.CommentRow last) {
+        return new CommentCursor(last.getCreatedAt(), last.getCommentID());
+    }
+
+    // Postgres timestamps have microsecond precision, so micros round-trip exactly
+    public String encode() {
+        String raw = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CommentCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) throw new IllegalArgumentException("Malformed cursor");
+            return new CommentCursor(Instant.EPOCH.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS),
+                    Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
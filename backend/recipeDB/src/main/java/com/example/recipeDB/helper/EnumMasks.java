@@ -0,0 +1,53 @@
+package com.example.recipeDB.helper;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Packs tag/ingredient sets into a long, bit n is the enum constant with ordinal n.
+ * Only appending new constants to Tag or Ingredient keeps existing masks valid.
+ */
+public class EnumMasks {
+    static {
+        // bit 63 is reserved by RecipeFilterIndex
+        if (Tag.values().length > 63 || Ingredient.values().length > 63) {
+            throw new IllegalStateException("Tag and Ingredient must each fit in 63 bits");
+        }
+    }
+
+    public static long tagMask(Collection<Tag> tags) {
+        long mask = 0;
+        if (tags != null) {
+            for (Tag t : tags) mask |= 1L << t.ordinal();
+        }
+        return mask;
+    }
+
+    public static long ingredientMask(Collection<Ingredient> ingredients) {
+        long mask = 0;
+        if (ingredients != null) {
+            for (Ingredient i : ingredients) mask |= 1L << i.ordinal();
+        }
+        return mask;
+    }
+
+    public static List<Tag> tags(long mask) {
+        List<Tag> tags = new ArrayList<>(Long.bitCount(mask));
+        for (Tag t : Tag.values()) {
+            if ((mask & (1L << t.ordinal())) != 0) tags.add(t);
+        }
+        return tags;
+    }
+
+    public static List<Ingredient> ingredients(long mask) {
+        List<Ingredient> ingredients = new ArrayList<>(Long.bitCount(mask));
+        for (Ingredient i : Ingredient.values()) {
+            if ((mask & (1L << i.ordinal())) != 0) ingredients.add(i);
+        }
+        return ingredients;
+    }
+}
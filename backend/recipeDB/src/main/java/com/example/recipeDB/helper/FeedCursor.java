@@ -0,0 +1,55 @@
+package com.example.recipeDB.helper;
+
+import com.example.recipeDB.enums.RecipeSort;
+import com.example.recipeDB.repository.RecipeRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a feed: the sort key and id of the last recipe returned.
+ * Encoded as an opaque url-safe string so clients only pass it back.
+ */
+public record FeedCursor(RecipeSort sort, int key, int id) {
+
+    // a cursor that sorts before every recipe
+    public static FeedCursor first(RecipeSort sort) {
+        return switch (sort) {
+            case NEWEST, TOP -> new FeedCursor(sort, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            case QUICKEST -> new FeedCursor(sort, Integer.MIN_VALUE, Integer.MIN_VALUE);
+        };
+    }
+
+    public static FeedCursor after(RecipeSort sort, RecipeRepository.SummaryRow last) {
+        return switch (sort) {
+            case NEWEST -> new FeedCursor(sort, 0, last.getRecipeID());
+            case TOP -> new FeedCursor(sort, last.getUpvotes(), last.getRecipeID());
+            case QUICKEST -> new FeedCursor(sort, totalTime(last), last.getRecipeID());
+        };
+    }
+
+    // matches the coalesce(prep_time, 0) + coalesce(cook_time, 0) expression index
+    public static int totalTime(RecipeRepository.SummaryRow recipe) {
+        int prep = recipe.getPrepTime() == null ? 0 : recipe.getPrepTime();
+        int cook = recipe.getCookTime() == null ? 0 : recipe.getCookTime();
+        return prep + cook;
+    }
+
+    public String encode() {
+        String raw = sort.name() + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor, RecipeSort expectedSort) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(expectedSort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to sort " + expectedSort);
+        }
+        return new FeedCursor(expectedSort, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+}
@@ -1,10 +1,29 @@
 package com.example.recipeDB.helper;
 
+import com.example.recipeDB.dto.CommentDTO;
 import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipeExportDTO;
+import com.example.recipeDB.dto.RecipePageDTO;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
 import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.repository.CommentRepository;
+import com.example.recipeDB.repository.RecipeRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 
 public class Utils {
-    public static RecipeDTO mapToRecipeDTO(Recipe recipe, long upvoteCount) {
+    private static final int MAX_SEARCH_WORDS = 8;
+
+    // upvotes come from the denormalized recipes.upvotes counter maintained by RecipeUpvoteService
+    public static RecipeDTO mapToRecipeDTO(Recipe recipe, int commentCount, RecipePageDTO<CommentDTO> comments) {
         return new RecipeDTO(
                 recipe.getRecipeID(),
                 recipe.getTitle(),
@@ -13,18 +32,106 @@ public class Utils {
                 recipe.getCookTime(),
                 recipe.getServings(),
                 recipe.getDifficulty(),
-                (int) upvoteCount,
+                recipe.getUpvotes(),
                 recipe.getSteps(),
                 recipe.getImageUrl(),
-                recipe.getTags(),
-                recipe.getIngredients(),
+                // copied so a cached DTO never holds a lazy Hibernate collection
+                copyOf(recipe.getTags()),
+                copyOf(recipe.getIngredients()),
                 recipe.getOwner().getUsername(),
-                recipe.getComments().stream().map(c -> new com.example.recipeDB.dto.CommentDTO(
-                        c.getId(),
-                        c.getRecipe().getRecipeID(),
-                        c.getText(),
-                        c.getAuthor().getUsername()
-                )).toList()
+                commentCount,
+                comments.items(),
+                comments.nextCursor(),
+                recipe.getRevision()
+        );
+    }
+
+    private static <T> List<T> copyOf(List<T> list) {
+        return list == null ? List.of() : List.copyOf(list);
+    }
+
+    // listings carry comment counts only, commentCounts as from CommentRepository.countsByRecipeIDs
+    public static List<RecipeDTO> mapToRecipeDTOs(List<Recipe> recipes, Map<Integer, Integer> commentCounts) {
+        RecipePageDTO<CommentDTO> none = new RecipePageDTO<>(List.of(), null);
+        return recipes.stream()
+                .map(r -> mapToRecipeDTO(r, commentCounts.getOrDefault(r.getRecipeID(), 0), none))
+                .toList();
+    }
+
+    public static CommentDTO mapToCommentDTO(CommentRepository.CommentRow row) {
+        return new CommentDTO(
+                row.getCommentID(),
+                row.getRecipeID(),
+                row.getContent(),
+                row.getCommenterUsername(),
+                row.getCreatedAt()
         );
     }
+
+    // enumRows are the tags/ingredients of all the summary rows, see RecipeRepository.findEnumRows
+    public static List<RecipeSummaryDTO> mapToRecipeSummaries(List<RecipeRepository.SummaryRow> rows,
+                                                              List<RecipeRepository.EnumRow> enumRows) {
+        Map<Integer, List<Tag>> tags = new HashMap<>();
+        Map<Integer, List<Ingredient>> ingredients = new HashMap<>();
+        for (var e : enumRows) {
+            if ("TAG".equals(e.getKind())) {
+                tags.computeIfAbsent(e.getRecipeID(), k -> new ArrayList<>()).add(Tag.valueOf(e.getValue()));
+            } else {
+                ingredients.computeIfAbsent(e.getRecipeID(), k -> new ArrayList<>()).add(Ingredient.valueOf(e.getValue()));
+            }
+        }
+        return rows.stream().map(r -> new RecipeSummaryDTO(
+                r.getRecipeID(),
+                r.getTitle(),
+                r.getDescription(),
+                r.getPrepTime(),
+                r.getCookTime(),
+                r.getServings(),
+                r.getDifficulty(),
+                r.getUpvotes(),
+                r.getImageUrl(),
+                tags.getOrDefault(r.getRecipeID(), List.of()),
+                ingredients.getOrDefault(r.getRecipeID(), List.of()),
+                r.getOwnerUsername()
+        )).toList();
+    }
+
+    public static RecipeExportDTO mapToRecipeExport(RecipeRepository.ExportRow row) {
+        return new RecipeExportDTO(
+                row.getRecipeID(),
+                row.getTitle(),
+                row.getDescription(),
+                row.getPrepTime(),
+                row.getCookTime(),
+                row.getServings(),
+                row.getDifficulty(),
+                row.getUpvotes(),
+                row.getSteps(),
+                row.getImageUrl(),
+                splitEnums(row.getTags(), Tag::valueOf),
+                splitEnums(row.getIngredients(), Ingredient::valueOf),
+                row.getOwnerUsername()
+        );
+    }
+
+    private static <E> List<E> splitEnums(String names, Function<String, E> valueOf) {
+        if (names == null || names.isEmpty()) return List.of();
+        return Arrays.stream(names.split(",")).map(valueOf).toList();
+    }
+
+    /**
+     * Turns free text into a to_tsquery expression: words are ANDed and the last one is a
+     * prefix match, so "garlic tom" finds "Garlic Tomato Pasta" while the user is still typing.
+     * Anything that is not a letter or digit is dropped, so the result is always valid syntax.
+     * Returns null when no searchable word is left.
+     */
+    public static String toPrefixTsQuery(String text) {
+        if (text == null) return null;
+        List<String> words = Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(w -> !w.isEmpty())
+                .limit(MAX_SEARCH_WORDS)
+                .toList();
+        if (words.isEmpty()) return null;
+        return String.join(" & ", words) + ":*";
+    }
 }
@@ -8,7 +8,11 @@ import lombok.Setter;
 import java.time.Instant;
 
 @Entity
-@Table(name = "comments")
+@Table(
+        name = "comments",
+        // keyset pages of a recipe's comments, newest first
+        indexes = @Index(name = "idx_comments_recipe_created_id", columnList = "recipe_id, created_at, id")
+)
 @Getter
 @Setter
 public class Comment {
@@ -17,7 +21,7 @@ public class Comment {
     @SequenceGenerator(
             name = "comments_seq_gen",
             sequenceName = "comments_seq",
-            allocationSize = 1
+            allocationSize = 50 // = INCREMENT BY, see schema.sql
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq_gen")
     private Integer id;
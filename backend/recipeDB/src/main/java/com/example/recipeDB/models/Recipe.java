@@ -4,9 +4,12 @@ package com.example.recipeDB.models;
 import com.example.recipeDB.enums.Ingredient;
 import com.example.recipeDB.enums.Tag;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.Formula;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,16 +17,25 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
+// owner and tags in the recipe select; a second bag (ingredients) can't join in the same
+// statement, it loads lazily in one more (see RecipeRepository.findDetailByRecipeID)
+@NamedEntityGraph(name = Recipe.DETAIL_GRAPH, attributeNodes = {
+        @NamedAttributeNode("owner"),
+        @NamedAttributeNode("tags")
+})
 @Table(
-        name = "recipes"
+        name = "recipes",
+        indexes = @Index(name = "idx_recipes_upvotes_id", columnList = "upvotes, recipeid")
 )
 public class Recipe {
+    public static final String DETAIL_GRAPH = "Recipe.detail";
+
     @Id
     // TODO: later we can get rid of this and use generation auto, this was to match the SQL scripts
     @SequenceGenerator(
             name = "recipes_seq_gen",
             sequenceName = "recipes_seq",
-            allocationSize = 1 //
+            allocationSize = 50 // = INCREMENT BY, see schema.sql
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipes_seq_gen")
     private Integer recipeID;
@@ -58,4 +70,22 @@ public class Recipe {
 
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments = new ArrayList<>();
+
+    // recipes.revision as of this load (schema.sql owns the column and bumps it), carried into the
+    // cached RecipeDTO so HttpCachingInterceptor can tell a cached body from the current state
+    @JsonIgnore
+    @Formula("revision")
+    private Long revision;
+
+    // Full-text search document, computed by Postgres and indexed by idx_recipes_search_vector (schema.sql).
+    // Mapped only so ddl-auto creates the column; reads select null so entity loads never pull it.
+    @JsonIgnore
+    @Column(name = "search_vector", insertable = false, updatable = false, columnDefinition = SEARCH_VECTOR_DEFINITION)
+    @ColumnTransformer(read = "null")
+    private String searchVector;
+
+    public static final String SEARCH_VECTOR_DEFINITION = "tsvector GENERATED ALWAYS AS ("
+            + "setweight(to_tsvector('english', coalesce(title, '')), 'A') || "
+            + "setweight(to_tsvector('english', coalesce(description, '')), 'B') || "
+            + "setweight(to_tsvector('english', coalesce(steps, '')), 'C')) STORED";
 }
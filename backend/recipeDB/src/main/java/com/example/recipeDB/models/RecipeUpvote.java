@@ -17,7 +17,7 @@ public class RecipeUpvote {
     @SequenceGenerator(
             name = "recipe_upvotes_seq_gen",
             sequenceName = "recipe_upvotes_seq",
-            allocationSize = 1
+            allocationSize = 50 // = INCREMENT BY, see schema.sql
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_upvotes_seq_gen")
     private Integer id;
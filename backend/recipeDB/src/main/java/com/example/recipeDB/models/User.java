@@ -25,7 +25,7 @@ public class User {
     @SequenceGenerator(
             name = "users_seq_gen",
             sequenceName = "users_seq",
-            allocationSize = 1
+            allocationSize = 50 // = INCREMENT BY, see schema.sql
     )
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq_gen")
     private Integer userID;
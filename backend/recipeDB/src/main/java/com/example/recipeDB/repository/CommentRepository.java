@@ -1,7 +1,73 @@
 package com.example.recipeDB.repository;
 
 import com.example.recipeDB.models.Comment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+
+    // a comment with its author's username, joined in the same select
+    interface CommentRow {
+        Integer getCommentID();
+        Integer getRecipeID();
+        String getContent();
+        String getCommenterUsername();
+        Instant getCreatedAt();
+    }
+
+    interface CountRow {
+        Integer getRecipeID();
+        Long getCount();
+    }
+
+    // newest first; pages are range scans on idx_comments_recipe_created_id
+
+    @Query("""
+            select c.id as commentID, c.recipe.recipeID as recipeID, c.text as content,
+                   a.username as commenterUsername, c.createdAt as createdAt
+            from Comment c join c.author a
+            where c.recipe.recipeID = :recipeID
+            order by c.createdAt desc, c.id desc
+            """)
+    List<CommentRow> findFirstPage(@Param("recipeID") int recipeID, Limit limit);
+
+    @Query("""
+            select c.id as commentID, c.recipe.recipeID as recipeID, c.text as content,
+                   a.username as commenterUsername, c.createdAt as createdAt
+            from Comment c join c.author a
+            where c.recipe.recipeID = :recipeID
+              and (c.createdAt, c.id) < (:createdAt, :id)
+            order by c.createdAt desc, c.id desc
+            """)
+    List<CommentRow> findPageAfter(@Param("recipeID") int recipeID, @Param("createdAt") Instant createdAt,
+                                   @Param("id") int id, Limit limit);
+
+    @Query("select count(c) from Comment c where c.recipe.recipeID = :recipeID")
+    int countByRecipeID(@Param("recipeID") int recipeID);
+
+    @Query("""
+            select c.recipe.recipeID as recipeID, count(c) as count
+            from Comment c where c.recipe.recipeID in :ids
+            group by c.recipe.recipeID
+            """)
+    List<CountRow> countByRecipeIDs(@Param("ids") Collection<Integer> ids);
+
+    // comment counts for a whole listing, recipes without comments are absent
+    default Map<Integer, Integer> countsByRecipeIDs(List<Integer> ids) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += RecipeRepository.MAX_IDS_PER_QUERY) {
+            for (CountRow row : countByRecipeIDs(ids.subList(from, Math.min(from + RecipeRepository.MAX_IDS_PER_QUERY, ids.size())))) {
+                counts.put(row.getRecipeID(), row.getCount().intValue());
+            }
+        }
+        return counts;
+    }
 }
@@ -1,17 +1,322 @@
 package com.example.recipeDB.repository;
 
+import com.example.recipeDB.config.CacheConfig;
 import com.example.recipeDB.enums.Tag;
 import com.example.recipeDB.models.Recipe;
 import com.example.recipeDB.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface RecipeRepository extends JpaRepository<Recipe, Integer> {
+    // keeps each IN list well below the JDBC driver's bind parameter limit
+    int MAX_IDS_PER_QUERY = 10_000;
+
+    // list-view columns of a recipe, no steps/comments/element collections
+    interface SummaryRow {
+        Integer getRecipeID();
+        String getTitle();
+        String getDescription();
+        Integer getPrepTime();
+        Integer getCookTime();
+        Integer getServings();
+        Integer getDifficulty();
+        Integer getUpvotes();
+        String getImageUrl();
+        String getOwnerUsername();
+    }
+
+    // everything but comments, tags/ingredients as comma-separated enum names
+    interface ExportRow extends SummaryRow {
+        String getSteps();
+        String getTags();
+        String getIngredients();
+    }
+
+    // one tag or ingredient of a recipe, kind is TAG or INGREDIENT
+    interface EnumRow {
+        Integer getRecipeID();
+        String getKind();
+        String getValue();
+    }
 
-public interface RecipeRepository extends CrudRepository<Recipe, Integer> {
     List<Recipe> findDistinctByTagsIn(Collection<Tag> tags);
 
     @EntityGraph(attributePaths = "owner")
     List<Recipe> findAll();
+
+    /**
+     * The recipe for the detail view: recipe, owner and tags in one select, ingredients in a
+     * second. Comments are not touched, the detail page reads them through CommentRepository.
+     */
+    @EntityGraph(Recipe.DETAIL_GRAPH)
+    Optional<Recipe> findDetailByRecipeID(int recipeID);
+
+    @EntityGraph(attributePaths = "owner")
+    List<Recipe> findAllByOrderByRecipeIDAsc(Limit limit);
+
+    @Query("""
+            select r.recipeID as recipeID, r.title as title, r.description as description,
+                   r.prepTime as prepTime, r.cookTime as cookTime, r.servings as servings,
+                   r.difficulty as difficulty, r.upvotes as upvotes, r.imageUrl as imageUrl,
+                   o.username as ownerUsername
+            from Recipe r join r.owner o
+            order by r.recipeID
+            """)
+    List<SummaryRow> findSummaries(Limit limit);
+
+    @Query("""
+            select r.recipeID as recipeID, r.title as title, r.description as description,
+                   r.prepTime as prepTime, r.cookTime as cookTime, r.servings as servings,
+                   r.difficulty as difficulty, r.upvotes as upvotes, r.imageUrl as imageUrl,
+                   o.username as ownerUsername
+            from Recipe r join r.owner o
+            where o.username = :username
+            order by r.recipeID
+            """)
+    List<SummaryRow> findSummariesByOwnerUsername(@Param("username") String username);
+
+    @Query("""
+            select r.recipeID as recipeID, r.title as title, r.description as description,
+                   r.prepTime as prepTime, r.cookTime as cookTime, r.servings as servings,
+                   r.difficulty as difficulty, r.upvotes as upvotes, r.imageUrl as imageUrl,
+                   o.username as ownerUsername
+            from Recipe r join r.owner o
+            where r.recipeID in (select r2.recipeID from Recipe r2 join r2.tags t where t in :tags)
+            order by r.recipeID
+            """)
+    List<SummaryRow> findSummariesByTagsIn(@Param("tags") Collection<Tag> tags);
+
+    @Query("""
+            select r.recipeID as recipeID, r.title as title, r.description as description,
+                   r.prepTime as prepTime, r.cookTime as cookTime, r.servings as servings,
+                   r.difficulty as difficulty, r.upvotes as upvotes, r.imageUrl as imageUrl,
+                   o.username as ownerUsername
+            from Recipe r join r.owner o
+            where r.recipeID in :ids
+            order by r.recipeID
+            """)
+    List<SummaryRow> findSummariesByRecipeIDs(@Param("ids") Collection<Integer> ids);
+
+    @Query(value = """
+            select t.recipe_recipeid as "recipeID", 'TAG' as "kind", t.tags as "value"
+            from recipe_tags t where t.recipe_recipeid in (:ids)
+            union all
+            select i.recipe_recipeid, 'INGREDIENT', i.ingredients
+            from recipe_ingredients i where i.recipe_recipeid in (:ids)
+            """, nativeQuery = true)
+    List<EnumRow> findEnumRowsByRecipeIDs(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Tags and ingredients for a whole page of summaries in one statement
+     * (per MAX_IDS_PER_QUERY ids) instead of two lazy collection loads per recipe.
+     */
+    default List<EnumRow> findEnumRows(List<Integer> ids) {
+        List<EnumRow> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            rows.addAll(findEnumRowsByRecipeIDs(ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()))));
+        }
+        return rows;
+    }
+
+    // keyset pages for the feed, each one is a range scan on its index no matter how deep the cursor is
+
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id
+            where r.recipeid < :afterId
+            order by r.recipeid desc
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> findNewestPage(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    // one user's recipes, newest first; idx_recipes_user_recipeid
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id
+            where r.user_id = :userID and r.recipeid < :afterId
+            order by r.recipeid desc
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> findOwnerNewestPage(@Param("userID") int userID, @Param("afterId") int afterId,
+                                         @Param("limit") int limit);
+
+    // idx_recipe_trending_score, see TrendingService
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipe_trending t
+            join recipes r on r.recipeid = t.recipe_id
+            join users u on u.userid = r.user_id
+            order by t.score desc, t.recipe_id desc
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> findTrendingPage(@Param("limit") int limit);
+
+    // idx_recipes_upvotes_id
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id
+            where (r.upvotes, r.recipeid) < (:upvotes, :afterId)
+            order by r.upvotes desc, r.recipeid desc
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> findTopPage(@Param("upvotes") int upvotes, @Param("afterId") int afterId, @Param("limit") int limit);
+
+    // idx_recipes_total_time, the expression has to match the index exactly
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id
+            where (coalesce(r.prep_time, 0) + coalesce(r.cook_time, 0), r.recipeid) > (:totalTime, :afterId)
+            order by coalesce(r.prep_time, 0) + coalesce(r.cook_time, 0), r.recipeid
+            limit :limit
+            """, nativeQuery = true)
+    List<SummaryRow> findQuickestPage(@Param("totalTime") int totalTime, @Param("afterId") int afterId, @Param("limit") int limit);
+
+    // full-text search over title (weight A), description (B) and steps (C), best ts_rank first
+
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id,
+                 to_tsquery('english', :query) q
+            where r.search_vector @@ q
+            order by ts_rank(r.search_vector, q) desc, r.recipeid desc
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<SummaryRow> search(@Param("query") String tsQuery, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername"
+            from recipes r join users u on u.userid = r.user_id,
+                 to_tsquery('english', :query) q
+            where r.search_vector @@ q
+              and exists (select 1 from recipe_tags t where t.recipe_recipeid = r.recipeid and t.tags in (:tags))
+            order by ts_rank(r.search_vector, q) desc, r.recipeid desc
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<SummaryRow> searchWithTags(@Param("query") String tsQuery, @Param("tags") Collection<String> tags,
+                                    @Param("limit") int limit, @Param("offset") int offset);
+
+    /**
+     * The catalog in id order from a forward-only cursor, fetched FETCH_SIZE rows at a time.
+     * Rows are projections, not entities, so nothing accumulates in the persistence context.
+     * Has to be consumed inside a transaction, the driver only streams with autocommit off.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = """
+            select r.recipeid as "recipeID", r.title as "title", r.description as "description",
+                   r.prep_time as "prepTime", r.cook_time as "cookTime", r.servings as "servings",
+                   r.difficulty as "difficulty", r.upvotes as "upvotes", r.image_url as "imageUrl",
+                   u.username as "ownerUsername", r.steps as "steps",
+                   (select string_agg(t.tags, ',') from recipe_tags t where t.recipe_recipeid = r.recipeid) as "tags",
+                   (select string_agg(i.ingredients, ',') from recipe_ingredients i where i.recipe_recipeid = r.recipeid) as "ingredients"
+            from recipes r join users u on u.userid = r.user_id
+            where r.recipeid > :afterId
+            order by r.recipeid
+            """, nativeQuery = true)
+    Stream<ExportRow> streamExportRows(@Param("afterId") int afterId);
+
+    // recipes never change owner, so this is only evicted when the recipe is deleted
+    @Cacheable(cacheNames = CacheConfig.RECIPE_OWNER, unless = "#result == null")
+    @Query("select r.owner.username from Recipe r where r.recipeID = :recipeID")
+    Optional<String> findOwnerUsernameByRecipeID(@Param("recipeID") int recipeID);
+
+    @Query("select r.upvotes from Recipe r where r.recipeID = :recipeID")
+    int findUpvotesByRecipeID(@Param("recipeID") int recipeID);
+
+    // empty if the recipe does not exist
+    @Query("select r.upvotes from Recipe r where r.recipeID = :recipeID")
+    Optional<Integer> findUpvoteCount(@Param("recipeID") int recipeID);
+
+    // in-database increment, the row lock is held only for the rest of the toggle transaction
+    @Modifying
+    @Query(value = """
+            update recipes set upvotes = upvotes + :delta, revision = nextval('recipe_revision_seq')
+            where recipeid = :recipeID
+            """, nativeQuery = true)
+    int adjustUpvotes(@Param("recipeID") int recipeID, @Param("delta") int delta);
+
+    // after an edit or a new comment, see recipes.revision in schema.sql
+    @Transactional
+    @Modifying
+    @Query(value = "update recipes set revision = nextval('recipe_revision_seq') where recipeid = :recipeID",
+            nativeQuery = true)
+    int bumpRevision(@Param("recipeID") int recipeID);
+
+    // ETag sources for the public read endpoints, see HttpCachingInterceptor
+
+    @Query(value = "select revision from recipes where recipeid = :recipeID", nativeQuery = true)
+    Optional<Long> findRevisionByRecipeID(@Param("recipeID") int recipeID);
+
+    // the window /all returns: its size, last id and newest revision, from idx_recipes_recipeid_revision
+    @Query(value = """
+            select count(*) || '-' || coalesce(max(recipeid), 0) || '-' || coalesce(max(revision), 0)
+            from (select recipeid, revision from recipes order by recipeid limit :limit) w
+            """, nativeQuery = true)
+    String findCatalogVersion(@Param("limit") int limit);
+
+    // recipe_count from user_stats, newest revision from idx_recipes_user_revision; null for an unknown user
+    @Query(value = """
+            select coalesce(s.recipe_count, 0) || '-'
+                   || coalesce((select max(r.revision) from recipes r where r.user_id = u.userid), 0)
+            from users u left join user_stats s on s.user_id = u.userid
+            where u.username = :username
+            """, nativeQuery = true)
+    String findOwnerVersion(@Param("username") String username);
+
+    // the last removal from any tag listing, then one idx_recipe_tags_tag_revision lookup per tag
+    @Query(value = """
+            select (select revision from recipe_removals where id = 1) || '-'
+                   || coalesce(max((select max(r.revision) from recipe_tags r where r.tags = t.tag)), 0)
+            from unnest(array[:tags]) as t(tag)
+            """, nativeQuery = true)
+    String findTagsVersion(@Param("tags") Collection<String> tags);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update recipes r set upvotes = c.actual, revision = nextval('recipe_revision_seq')
+            from (select r2.recipeid, count(u.id) as actual
+                  from recipes r2 left join recipe_upvotes u on u.recipe_id = r2.recipeid
+                  group by r2.recipeid) c
+            where c.recipeid = r.recipeid and r.upvotes is distinct from c.actual
+            """, nativeQuery = true)
+    int reconcileUpvotes();
 }
@@ -4,6 +4,9 @@ import com.example.recipeDB.models.Recipe;
 import com.example.recipeDB.models.RecipeUpvote;
 import com.example.recipeDB.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
@@ -12,4 +15,20 @@ public interface RecipeUpvoteRepository extends JpaRepository<RecipeUpvote, Inte
     boolean existsByRecipeAndUser(Recipe recipe, User User);
     void deleteByRecipeAndUser(Recipe recipe, User User);
     Optional<RecipeUpvote> findByRecipeAndUser(Recipe recipe, User user);
+
+    @Query("select count(u) > 0 from RecipeUpvote u where u.recipe.recipeID = :recipeID and u.user.userID = :userID")
+    boolean existsByRecipeIDAndUserID(@Param("recipeID") int recipeID, @Param("userID") int userID);
+
+    @Modifying
+    @Query("delete from RecipeUpvote u where u.recipe.recipeID = :recipeID and u.user.userID = :userID")
+    int deleteByRecipeIDAndUserID(@Param("recipeID") int recipeID, @Param("userID") int userID);
+
+    // relies on the (recipe_id, user_id) unique constraint, returns 0 if the upvote already exists
+    @Modifying
+    @Query(value = """
+            insert into recipe_upvotes (id, recipe_id, user_id)
+            values (nextval('recipe_upvotes_seq'), :recipeID, :userID)
+            on conflict (recipe_id, user_id) do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("recipeID") int recipeID, @Param("userID") int userID);
 }
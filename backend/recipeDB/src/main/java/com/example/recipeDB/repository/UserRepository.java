@@ -1,12 +1,75 @@
 package com.example.recipeDB.repository;
 
+import com.example.recipeDB.config.CacheConfig;
 import com.example.recipeDB.models.User;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends CrudRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer> {
+    // a user's totals from user_stats, zeros for users without any activity
+    interface ProfileRow {
+        Integer getUserID();
+        String getUsername();
+        Integer getRecipeCount();
+        Long getUpvotesReceived();
+        Integer getCommentCount();
+        Double getAverageDifficulty();
+    }
+
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.userID = :userID")
+    int updatePassword(@Param("userID") int userID, @Param("password") String password);
+
+    // for principals that don't carry the id, see CurrentUserService
+    @Cacheable(cacheNames = CacheConfig.USER_ID, unless = "#result == null")
+    @Query("select u.userID from User u where u.username = :username")
+    Optional<Integer> findUserIDByUsername(@Param("username") String username);
+
+    @Query(value = """
+            select u.userid as "userID", u.username as "username",
+                   coalesce(s.recipe_count, 0) as "recipeCount",
+                   coalesce(s.upvotes_received, 0) as "upvotesReceived",
+                   coalesce(s.comment_count, 0) as "commentCount",
+                   cast(s.difficulty_sum as double precision) / nullif(s.difficulty_count, 0) as "averageDifficulty"
+            from users u left join user_stats s on s.user_id = u.userid
+            where u.username = :username
+            """, nativeQuery = true)
+    Optional<ProfileRow> findProfileByUsername(@Param("username") String username);
+
+    // rewrites the user_stats rows that differ from the recipes and comments tables, see UserStatsService
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into user_stats as s (user_id, recipe_count, upvotes_received, comment_count, difficulty_sum, difficulty_count)
+            select a.user_id, a.recipe_count, a.upvotes_received, a.comment_count, a.difficulty_sum, a.difficulty_count
+            from (select u.userid as user_id,
+                         coalesce(r.recipes, 0) as recipe_count, coalesce(r.upvotes, 0) as upvotes_received,
+                         coalesce(c.comments, 0) as comment_count,
+                         coalesce(r.difficulty_sum, 0) as difficulty_sum, coalesce(r.difficulty_count, 0) as difficulty_count
+                  from users u
+                  left join (select user_id, count(*) as recipes, sum(coalesce(upvotes, 0)) as upvotes,
+                                    sum(difficulty) as difficulty_sum, count(difficulty) as difficulty_count
+                             from recipes group by user_id) r on r.user_id = u.userid
+                  left join (select user_id, count(*) as comments from comments group by user_id) c on c.user_id = u.userid) a
+            left join user_stats cur on cur.user_id = a.user_id
+            where (a.recipe_count, a.upvotes_received, a.comment_count, a.difficulty_sum, a.difficulty_count)
+                  is distinct from (cur.recipe_count, cur.upvotes_received, cur.comment_count, cur.difficulty_sum, cur.difficulty_count)
+              and (cur.user_id is not null or a.recipe_count > 0 or a.comment_count > 0)
+            on conflict (user_id) do update set
+                recipe_count = excluded.recipe_count, upvotes_received = excluded.upvotes_received,
+                comment_count = excluded.comment_count, difficulty_sum = excluded.difficulty_sum,
+                difficulty_count = excluded.difficulty_count
+            """, nativeQuery = true)
+    int reconcileUserStats();
 }
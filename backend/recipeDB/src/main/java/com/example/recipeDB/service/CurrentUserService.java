@@ -0,0 +1,30 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CurrentUserService {
+    private final UserRepository userRepository;
+
+    /**
+     * Id of the authenticated user. Read from the principal when it is a {@link RecipeUserDetails};
+     * sessions created before the principal carried the id fall back to the cached username lookup.
+     */
+    public int userID(Authentication auth) {
+        if (auth.getPrincipal() instanceof RecipeUserDetails details) {
+            return details.getUserID();
+        }
+        return userRepository.findUserIDByUsername(auth.getName())
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+    }
+
+    // an uninitialized proxy, enough to set a foreign key without a select
+    public User reference(Authentication auth) {
+        return userRepository.getReferenceById(userID(auth));
+    }
+}
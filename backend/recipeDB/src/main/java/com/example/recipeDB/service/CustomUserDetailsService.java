@@ -8,7 +8,7 @@ import java.util.Collections;
 
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     public CustomUserDetailsService(UserRepository userRepository) {
@@ -20,10 +20,19 @@ public class CustomUserDetailsService implements UserDetailsService {
         var u = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return new org.springframework.security.core.userdetails.User(
+        return new RecipeUserDetails(
+                u.getUserID(),
                 u.getUsername(),
                 u.getPassword(),
                 Collections.emptyList()
         );
     }
+
+    // called after a successful login whose stored hash is below the configured encoding
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        RecipeUserDetails details = (RecipeUserDetails) user;
+        userRepository.updatePassword(details.getUserID(), newPassword);
+        return new RecipeUserDetails(details.getUserID(), details.getUsername(), newPassword, details.getAuthorities());
+    }
 }
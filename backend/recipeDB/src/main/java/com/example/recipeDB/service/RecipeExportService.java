@@ -0,0 +1,57 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.helper.Utils;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as NDJSON straight from a database cursor: one row is read, mapped,
+ * serialized and dropped at a time, so memory use is the same for 10k recipes or 10M.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeExportService {
+    // rows between explicit flushes, so a slow client sees progress between Jackson's buffer fills
+    private static final int FLUSH_EVERY = 1_000;
+
+    private final RecipeRepository recipeRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every recipe with an id greater than afterId, in id order, one JSON object per
+     * line, and returns how many were written. A client that lost the connection resumes by
+     * passing the last recipeID it received.
+     */
+    @Transactional(readOnly = true)
+    public long export(int afterId, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long written = 0;
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<RecipeRepository.ExportRow> rows = recipeRepository.streamExportRows(afterId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // the caller owns out, e.g. to finish a gzip stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<RecipeRepository.ExportRow> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, Utils.mapToRecipeExport(it.next()));
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) generator.flush();
+            }
+        }
+        log.info("Exported {} recipes after id {} in {} ms", written, afterId, (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.EnumMasks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * In-memory index of every recipe's tags and ingredients as bitmasks (see {@link EnumMasks}),
+ * stored in two long arrays indexed by recipe id. Tag/ingredient filters become a linear scan
+ * of contiguous primitive arrays with bitwise tests, no joins and no per-recipe allocation.
+ *
+ * The index is rebuilt from recipe_tags/recipe_ingredients on startup and kept current by the
+ * write paths (RecipeController, RecipeService, RecipeImportService) through {@link #put} and
+ * {@link #remove}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecipeFilterIndex {
+    // set on every live recipe so one with no tags is still distinguishable from a free slot
+    private static final long PRESENT = 1L << 63;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${recipes.filter-index.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * "any" masks match if at least one bit is shared (0 means no constraint), "all" masks
+     * must be fully contained, "none" masks must not intersect.
+     */
+    public record Filter(long anyTags, long allTags, long noneTags,
+                         long anyIngredients, long allIngredients, long noneIngredients) {
+
+        public static Filter of(Collection<Tag> anyTags, Collection<Tag> allTags, Collection<Tag> noneTags,
+                                Collection<Ingredient> anyIngredients, Collection<Ingredient> allIngredients,
+                                Collection<Ingredient> noneIngredients) {
+            return new Filter(
+                    EnumMasks.tagMask(anyTags), EnumMasks.tagMask(allTags), EnumMasks.tagMask(noneTags),
+                    EnumMasks.ingredientMask(anyIngredients), EnumMasks.ingredientMask(allIngredients),
+                    EnumMasks.ingredientMask(noneIngredients));
+        }
+    }
+
+    // swapped as one reference on rebuild and growth, so a reader's two arrays always have the
+    // same length. Single slots are written in place by put/remove, see there.
+    private record Masks(long[] tags, long[] ingredients) {}
+
+    private volatile Masks masks = new Masks(new long[0], new long[0]);
+    private volatile boolean ready;
+    // ids written while a rebuild was reading the database, guarded by this
+    private Set<Integer> touchedDuringBuild;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // before SimilarRecipeIndex, which is built from this index
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void onStartup() {
+        if (enabled) rebuild();
+    }
+
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            touchedDuringBuild = new HashSet<>();
+        }
+
+        Integer maxId = jdbcTemplate.queryForObject("select coalesce(max(recipeid), 0) from recipes", Integer.class);
+        long[] tags = new long[(maxId == null ? 0 : maxId) + 1];
+        long[] ingredients = new long[tags.length];
+        transactionTemplate.executeWithoutResult(status -> {
+            // the driver only streams with a fetch size inside a transaction
+            stream("select recipeid from recipes where recipeid <= ?", rs -> tags[rs.getInt(1)] |= PRESENT, tags.length - 1);
+            stream("select recipe_recipeid, tags from recipe_tags where recipe_recipeid <= ?",
+                    rs -> tags[rs.getInt(1)] |= 1L << Tag.valueOf(rs.getString(2)).ordinal(), tags.length - 1);
+            stream("select recipe_recipeid, ingredients from recipe_ingredients where recipe_recipeid <= ?",
+                    rs -> ingredients[rs.getInt(1)] |= 1L << Ingredient.valueOf(rs.getString(2)).ordinal(), tags.length - 1);
+        });
+
+        int live;
+        synchronized (this) {
+            Masks current = masks;
+            Masks built = new Masks(tags, ingredients);
+            // writes that raced with the scan are newer than what it read
+            for (int id : touchedDuringBuild) {
+                built = ensureCapacity(built, id);
+                built.tags()[id] = id < current.tags().length ? current.tags()[id] : 0;
+                built.ingredients()[id] = id < current.ingredients().length ? current.ingredients()[id] : 0;
+            }
+            touchedDuringBuild = null;
+            masks = built;
+            live = (int) Arrays.stream(built.tags()).filter(m -> (m & PRESENT) != 0).count();
+        }
+        ready = true;
+        log.info("Recipe filter index built with {} recipes in {} ms", live, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void stream(String sql, RowCallbackHandler handler, int maxId) {
+        jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setInt(1, maxId);
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Writers are serialized, readers take no lock. A recipe's two slots are written one after
+     * the other in the live arrays, so a scan racing an edit can pair its new tags with its old
+     * ingredients, or the other way round, and match or skip it once on the mix. That is accepted
+     * rather than copying the arrays per write: edits are rare, the scan reports ids whose rows are
+     * then read from the database, and the next scan sees the whole edit.
+     */
+    public synchronized void put(int recipeId, Collection<Tag> tags, Collection<Ingredient> ingredients) {
+        if (!enabled) return;
+        Masks m = ensureCapacity(masks, recipeId);
+        m.tags()[recipeId] = EnumMasks.tagMask(tags) | PRESENT;
+        m.ingredients()[recipeId] = EnumMasks.ingredientMask(ingredients);
+        masks = m;
+        if (touchedDuringBuild != null) touchedDuringBuild.add(recipeId);
+    }
+
+    public synchronized void remove(int recipeId) {
+        if (!enabled) return;
+        Masks m = masks;
+        if (recipeId < m.tags().length) {
+            m.tags()[recipeId] = 0;
+            m.ingredients()[recipeId] = 0;
+        }
+        if (touchedDuringBuild != null) touchedDuringBuild.add(recipeId);
+    }
+
+    @FunctionalInterface
+    public interface MaskVisitor {
+        void accept(int recipeId, long tags, long ingredients);
+    }
+
+    // one past the highest recipe id the index has room for
+    public int capacity() {
+        return masks.tags().length;
+    }
+
+    public void forEachRecipe(MaskVisitor visitor) {
+        Masks m = masks;
+        long[] tags = m.tags();
+        long[] ingredients = m.ingredients();
+        for (int id = 0; id < tags.length; id++) {
+            long t = tags[id];
+            if ((t & PRESENT) != 0) visitor.accept(id, t & ~PRESENT, ingredients[id]);
+        }
+    }
+
+    private static Masks ensureCapacity(Masks m, int recipeId) {
+        if (recipeId < m.tags().length) return m;
+        int size = Math.max(recipeId + 1, m.tags().length + (m.tags().length >> 1));
+        return new Masks(Arrays.copyOf(m.tags(), size), Arrays.copyOf(m.ingredients(), size));
+    }
+
+    /**
+     * Writes the ids of matching recipes greater than afterId into out, in ascending order,
+     * and returns how many were written (at most out.length).
+     */
+    public int filter(Filter f, int afterId, int[] out) {
+        Masks m = masks;
+        long[] tags = m.tags();
+        long[] ingredients = m.ingredients();
+        int n = 0;
+        for (int id = Math.max(afterId + 1, 0); id < tags.length && n < out.length; id++) {
+            long t = tags[id];
+            if ((t & PRESENT) != 0 && matches(f, t, ingredients[id])) {
+                out[n++] = id;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * "What can I cook?": ranks recipes matching f by how many of their ingredients are not in
+     * the pantry, then by how many pantry ingredients they use, then by id. Recipes without
+     * ingredients or missing more than maxMissing are skipped. Writes the best outIds.length
+     * ids into outIds, best first, and returns how many were written.
+     *
+     * The top-k is kept in a bounded max-heap of packed longs, so the scan allocates nothing
+     * regardless of catalog size.
+     */
+    public int pantryMatch(long pantry, Filter f, int maxMissing, int[] outIds) {
+        Masks m = masks;
+        long[] tags = m.tags();
+        long[] ingredients = m.ingredients();
+        int k = outIds.length;
+        if (k == 0) return 0;
+        long[] heap = new long[k];
+        int size = 0;
+
+        for (int id = 0; id < tags.length; id++) {
+            long t = tags[id];
+            long i = ingredients[id];
+            if ((t & PRESENT) == 0 || i == 0 || !matches(f, t, i)) continue;
+            int missing = Long.bitCount(i & ~pantry);
+            if (missing > maxMissing) continue;
+            long key = rankKey(missing, Long.bitCount(i & pantry), id);
+            if (size < k) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        // drain the max-heap from the back so the best match ends up first
+        for (int n = size - 1; n >= 0; n--) {
+            outIds[n] = (int) heap[0];
+            heap[0] = heap[n];
+            siftDown(heap, n);
+        }
+        return size;
+    }
+
+    // smaller is better: missing, then more pantry ingredients used, then lower id
+    private static long rankKey(int missing, int used, int id) {
+        return ((long) missing << 40) | ((long) (63 - used) << 32) | id;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) return;
+        long key = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+            if (heap[child] <= key) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    private static boolean matches(Filter f, long t, long i) {
+        if (f.anyTags() != 0 && (t & f.anyTags()) == 0) return false;
+        if ((t & f.allTags()) != f.allTags() || (t & f.noneTags()) != 0) return false;
+        if (f.anyIngredients() != 0 && (i & f.anyIngredients()) == 0) return false;
+        return (i & f.allIngredients()) == f.allIngredients() && (i & f.noneIngredients()) == 0;
+    }
+}
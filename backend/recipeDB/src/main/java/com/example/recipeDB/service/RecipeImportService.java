@@ -0,0 +1,304 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.dto.ImportResultDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.repository.SequenceIdAllocator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk recipe import from NDJSON or CSV. The input is read as a stream and written to
+ * recipes/recipe_tags/recipe_ingredients with COPY in chunks of recipes.import.chunk-size rows,
+ * each chunk in its own transaction, so heap use does not depend on the size of the upload.
+ *
+ * Rows that fail validation are reported and skipped. A chunk the database rejects is reported
+ * row by row and the import carries on with the next chunk.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeImportService {
+    private static final String RECIPES_COPY = "COPY recipes (recipeid, title, description, prep_time, cook_time, "
+            + "servings, difficulty, upvotes, steps, image_url, user_id) FROM STDIN WITH (FORMAT csv)";
+    private static final String TAGS_COPY = "COPY recipe_tags (recipe_recipeid, tags) FROM STDIN WITH (FORMAT csv)";
+    private static final String INGREDIENTS_COPY =
+            "COPY recipe_ingredients (recipe_recipeid, ingredients) FROM STDIN WITH (FORMAT csv)";
+
+    // column lengths as mapped on Recipe
+    private static final int MAX_LENGTH = 255;
+    private static final int MAX_STEPS_LENGTH = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final RecipeFilterIndex recipeFilterIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    @Value("${recipes.import.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    @Value("${recipes.import.max-reported-errors:1000}")
+    private int maxReportedErrors = 1000;
+
+    public enum Format { NDJSON, CSV }
+
+    /**
+     * One input row. In CSV the tags and ingredients columns hold enum names separated by ';'.
+     */
+    public record ImportRow(String title, String description, Integer prepTime, Integer cookTime,
+                            Integer servings, Integer difficulty, String steps, String imageUrl,
+                            List<String> tags, List<String> ingredients) {}
+
+    private record ValidRow(long row, ImportRow data, List<Tag> tags, List<Ingredient> ingredients) {}
+
+    private static class RowException extends Exception {
+        RowException(String message) {
+            super(message);
+        }
+    }
+
+    // returns null at end of input, throws RowException for a row that can't be parsed
+    private interface RowReader {
+        ImportRow next() throws IOException, RowException;
+    }
+
+    private class Progress {
+        final List<ImportResultDTO.RowError> errors = new ArrayList<>();
+        long imported;
+        long rejected;
+
+        void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResultDTO.RowError(row, message));
+            }
+        }
+    }
+
+    public ImportResultDTO importRecipes(InputStream in, Format format, int ownerId) throws IOException {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowReader rows = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+        List<ValidRow> chunk = new ArrayList<>(chunkSize);
+        long row = 0;
+        while (true) {
+            ImportRow next;
+            try {
+                row++;
+                next = rows.next();
+                if (next == null) break;
+                chunk.add(validate(row, next));
+            } catch (RowException e) {
+                progress.reject(row, e.getMessage());
+                continue;
+            }
+            if (chunk.size() == chunkSize) {
+                write(chunk, ownerId, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) write(chunk, ownerId, progress);
+
+        long millis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        double rowsPerSecond = progress.imported * 1000.0 / millis;
+        log.info("Imported {} recipes ({} rejected) in {} ms, {} rows/s",
+                progress.imported, progress.rejected, millis, Math.round(rowsPerSecond));
+        return new ImportResultDTO(progress.imported, progress.rejected, progress.errors,
+                progress.rejected > progress.errors.size(), millis, rowsPerSecond);
+    }
+
+    private RowReader ndjsonRows(BufferedReader reader) {
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) return null;
+            } while (line.isBlank());
+            try {
+                return objectMapper.readValue(line, ImportRow.class);
+            } catch (JsonProcessingException e) {
+                throw new RowException("Invalid JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RowReader csvRows(BufferedReader reader) throws IOException {
+        MappingIterator<String[]> it = new CsvMapper()
+                .readerForArrayOf(String.class)
+                .withFeatures(CsvParser.Feature.WRAP_AS_ARRAY, CsvParser.Feature.SKIP_EMPTY_LINES)
+                .readValues(reader);
+        Map<String, Integer> header = new HashMap<>();
+        if (it.hasNextValue()) {
+            String[] names = it.nextValue();
+            for (int i = 0; i < names.length; i++) header.put(names[i].trim(), i);
+        }
+        if (!header.containsKey("title")) {
+            throw new IllegalArgumentException("CSV header must contain at least a title column");
+        }
+        return () -> {
+            String[] cols;
+            try {
+                if (!it.hasNextValue()) return null;
+                cols = it.nextValue();
+            } catch (RuntimeException e) {
+                throw new RowException("Invalid CSV: " + e.getMessage());
+            }
+            return new ImportRow(col(cols, header, "title"), col(cols, header, "description"),
+                    intCol(cols, header, "prepTime"), intCol(cols, header, "cookTime"),
+                    intCol(cols, header, "servings"), intCol(cols, header, "difficulty"),
+                    col(cols, header, "steps"), col(cols, header, "imageUrl"),
+                    listCol(cols, header, "tags"), listCol(cols, header, "ingredients"));
+        };
+    }
+
+    private static String col(String[] cols, Map<String, Integer> header, String name) {
+        Integer i = header.get(name);
+        return i == null || i >= cols.length || cols[i].isEmpty() ? null : cols[i];
+    }
+
+    private static Integer intCol(String[] cols, Map<String, Integer> header, String name) throws RowException {
+        String value = col(cols, header, name);
+        try {
+            return value == null ? null : Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RowException(name + " is not a number: " + value);
+        }
+    }
+
+    private static List<String> listCol(String[] cols, Map<String, Integer> header, String name) {
+        String value = col(cols, header, name);
+        return value == null ? List.of() : List.of(value.split(";"));
+    }
+
+    private static ValidRow validate(long row, ImportRow r) throws RowException {
+        if (r.title() == null || r.title().isBlank()) throw new RowException("title is required");
+        checkLength("title", r.title(), MAX_LENGTH);
+        checkLength("description", r.description(), MAX_LENGTH);
+        checkLength("imageUrl", r.imageUrl(), MAX_LENGTH);
+        checkLength("steps", r.steps(), MAX_STEPS_LENGTH);
+        checkNotNegative("prepTime", r.prepTime());
+        checkNotNegative("cookTime", r.cookTime());
+        checkNotNegative("servings", r.servings());
+        if (r.difficulty() != null && (r.difficulty() < 1 || r.difficulty() > 5)) {
+            throw new RowException("difficulty must be between 1 and 5");
+        }
+        return new ValidRow(row, r, enums(Tag.class, "tag", r.tags()), enums(Ingredient.class, "ingredient", r.ingredients()));
+    }
+
+    private static void checkLength(String name, String value, int max) throws RowException {
+        if (value != null && value.length() > max) throw new RowException(name + " is longer than " + max);
+    }
+
+    private static void checkNotNegative(String name, Integer value) throws RowException {
+        if (value != null && value < 0) throw new RowException(name + " must not be negative");
+    }
+
+    private static <E extends Enum<E>> List<E> enums(Class<E> type, String what, List<String> names) throws RowException {
+        if (names == null) return List.of();
+        // duplicates would violate the (recipe, value) primary key
+        LinkedHashSet<E> values = new LinkedHashSet<>();
+        for (String name : names) {
+            try {
+                values.add(Enum.valueOf(type, name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new RowException("Unknown " + what + ": " + name);
+            }
+        }
+        return List.copyOf(values);
+    }
+
+    private void write(List<ValidRow> chunk, int ownerId, Progress progress) {
+        int[] ids = sequenceIdAllocator.next("recipes_seq", chunk.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                var copyApi = con.unwrap(PGConnection.class).getCopyAPI();
+                copy(copyApi.copyIn(RECIPES_COPY), chunk, ids, (sb, r, id) -> {
+                    ImportRow d = r.data();
+                    sb.append(id).append(',');
+                    csv(sb, d.title()).append(',');
+                    csv(sb, d.description()).append(',');
+                    csv(sb, d.prepTime()).append(',');
+                    csv(sb, d.cookTime()).append(',');
+                    csv(sb, d.servings()).append(',');
+                    csv(sb, d.difficulty()).append(",0,");
+                    csv(sb, d.steps()).append(',');
+                    csv(sb, d.imageUrl()).append(',');
+                    sb.append(ownerId).append('\n');
+                });
+                copy(copyApi.copyIn(TAGS_COPY), chunk, ids, (sb, r, id) -> {
+                    for (Tag t : r.tags()) sb.append(id).append(',').append(t.name()).append('\n');
+                });
+                copy(copyApi.copyIn(INGREDIENTS_COPY), chunk, ids, (sb, r, id) -> {
+                    for (Ingredient i : r.ingredients()) sb.append(id).append(',').append(i.name()).append('\n');
+                });
+                return null;
+            }));
+        } catch (DataAccessException e) {
+            log.warn("Import chunk of {} rows starting at row {} failed", chunk.size(), chunk.get(0).row(), e);
+            String message = "Rejected by the database: " + e.getMostSpecificCause().getMessage();
+            for (ValidRow r : chunk) progress.reject(r.row(), message);
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            recipeFilterIndex.put(ids[i], chunk.get(i).tags(), chunk.get(i).ingredients());
+            similarRecipeIndex.put(ids[i], chunk.get(i).tags(), chunk.get(i).ingredients());
+        }
+        progress.imported += chunk.size();
+    }
+
+    private interface RowWriter {
+        void write(StringBuilder sb, ValidRow row, int id);
+    }
+
+    private static void copy(CopyIn copyIn, List<ValidRow> chunk, int[] ids, RowWriter writer) throws SQLException {
+        StringBuilder sb = new StringBuilder(1024);
+        try {
+            for (int i = 0; i < chunk.size(); i++) {
+                writer.write(sb, chunk.get(i), ids[i]);
+                byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                sb.setLength(0);
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) copyIn.cancelCopy();
+        }
+    }
+
+    // COPY csv: an unquoted empty field is NULL, a quoted one is an empty string
+    private static StringBuilder csv(StringBuilder sb, Object value) {
+        if (value == null) return sb;
+        if (value instanceof Integer) return sb.append(value);
+        return sb.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+    }
+}
@@ -10,11 +10,10 @@ import org.springframework.stereotype.Component;
 public class RecipeSecurityService {
     private final RecipeRepository recipeRepository;
 
+    // owner lookups are cached, see RecipeRepository.findOwnerUsernameByRecipeID
     public boolean isOwner(int recipeId, Authentication auth) {
-      var recipe = recipeRepository.findById(recipeId).orElse(null);
-      if (recipe == null || recipe.getOwner() == null) {
-          return false;
-      }
-        return recipe.getOwner().getUsername().equals(auth.getName());
+        return recipeRepository.findOwnerUsernameByRecipeID(recipeId)
+                .map(owner -> owner.equals(auth.getName()))
+                .orElse(false);
     }
 }
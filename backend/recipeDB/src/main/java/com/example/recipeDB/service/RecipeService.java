@@ -0,0 +1,121 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.config.CacheConfig;
+import com.example.recipeDB.dto.CommentDTO;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipePageDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.CommentCursor;
+import com.example.recipeDB.helper.Utils;
+import com.example.recipeDB.models.Comment;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.repository.CommentRepository;
+import com.example.recipeDB.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The cached recipe detail and the writes that invalidate it. Each write runs in one transaction
+ * together with its {@link CacheEvict}; the cache manager is transaction-aware (see
+ * {@link CacheConfig}), so the entries are dropped only once the write has committed. Evicting
+ * earlier would let a concurrent read re-cache the old state for the rest of the TTL. The
+ * in-memory indexes are updated after the commit too, so a rolled-back write leaves them alone.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeService {
+    private final RecipeRepository recipeRepository;
+    private final CommentRepository commentRepository;
+    private final TrendingService trendingService;
+    private final RecipeFilterIndex recipeFilterIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+
+    // null when there is no such recipe; four statements whatever the number of comments, see RecipeDetailQueryCountTests
+    @Cacheable(cacheNames = CacheConfig.RECIPE_DETAIL, key = "#recipeID", unless = "#result == null")
+    public RecipeDTO detail(int recipeID, int commentsPageSize) {
+        Recipe recipe = recipeRepository.findDetailByRecipeID(recipeID).orElse(null);
+        if (recipe == null) return null;
+        return Utils.mapToRecipeDTO(recipe, commentRepository.countByRecipeID(recipeID),
+                commentPage(recipeID, null, commentsPageSize));
+    }
+
+    public RecipePageDTO<CommentDTO> commentPage(int recipeID, CommentCursor after, int pageSize) {
+        // one extra row tells whether there is a next page
+        List<CommentRepository.CommentRow> rows = after == null
+                ? commentRepository.findFirstPage(recipeID, Limit.of(pageSize + 1))
+                : commentRepository.findPageAfter(recipeID, after.createdAt(), after.id(), Limit.of(pageSize + 1));
+        boolean more = rows.size() > pageSize;
+        if (more) rows = rows.subList(0, pageSize);
+        String next = more ? CommentCursor.after(rows.get(rows.size() - 1)).encode() : null;
+        return new RecipePageDTO<>(rows.stream().map(Utils::mapToCommentDTO).toList(), next);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAIL, key = "#recipeID")
+    public Recipe edit(int recipeID, Consumer<Recipe> changes) {
+        Recipe recipe = recipeRepository.findById(recipeID).orElseThrow(
+                () -> new IllegalStateException("Recipe with ID " + recipeID + " does not exist.")
+        );
+        changes.accept(recipe);
+        recipeRepository.save(recipe);
+        // same transaction, so the new revision and the state it names commit together
+        recipeRepository.bumpRevision(recipeID);
+        List<Tag> tags = List.copyOf(recipe.getTags());
+        List<Ingredient> ingredients = List.copyOf(recipe.getIngredients());
+        afterCommit(() -> {
+            recipeFilterIndex.put(recipeID, tags, ingredients);
+            similarRecipeIndex.put(recipeID, tags, ingredients);
+        });
+        return recipe;
+    }
+
+    // false when there is no such recipe
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.RECIPE_DETAIL, CacheConfig.RECIPE_OWNER}, key = "#recipeID")
+    public boolean delete(int recipeID) {
+        Recipe recipe = recipeRepository.findById(recipeID).orElse(null);
+        if (recipe == null) return false;
+        recipeRepository.delete(recipe);
+        afterCommit(() -> {
+            recipeFilterIndex.remove(recipeID);
+            similarRecipeIndex.remove(recipeID);
+        });
+        return true;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAIL, key = "#recipeID")
+    public Comment addComment(int recipeID, String text, User author) {
+        Recipe recipe = recipeRepository.findById(recipeID).orElseThrow(
+                () -> new IllegalStateException("Recipe with ID " + recipeID + " does not exist.")
+        );
+        Comment comment = new Comment();
+        comment.setText(text);
+        comment.setRecipe(recipe);
+        comment.setAuthor(author);
+        Comment saved = commentRepository.save(comment);
+        recipeRepository.bumpRevision(recipeID);
+        trendingService.recordComment(recipeID, saved.getCreatedAt());
+        return saved;
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.config.CacheConfig;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.repository.RecipeUpvoteRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class RecipeUpvoteService {
+    private final RecipeRepository recipeRepository;
+    private final RecipeUpvoteRepository recipeUpvoteRepository;
+    private final TrendingService trendingService;
+    private final JdbcTemplate jdbcTemplate;
+    // present when recipes.upvotes.write-behind.enabled=true
+    private final Optional<UpvoteWriteBehindBuffer> writeBehind;
+
+    public record ToggleResult(int upvotes, boolean upvoted) {}
+
+    /**
+     * Flips the user's upvote and keeps recipes.upvotes in step with recipe_upvotes.
+     * The counter is only adjusted when a row was actually deleted or inserted, and
+     * the adjustment is an in-database increment, so concurrent toggles on the same
+     * recipe never read-modify-write the entity. The trending score moves in the same
+     * transaction, a retraction by exactly what the upvote added when it was cast.
+     *
+     * In write-behind mode the toggle is buffered instead, see {@link UpvoteWriteBehindBuffer};
+     * the stored count only changes when a flush lands, and the flush evicts the detail then.
+     * Here the eviction waits for this transaction to commit, see {@link CacheConfig}.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAIL, key = "#recipeID")
+    public ToggleResult toggle(int recipeID, int userID) {
+        if (writeBehind.isPresent()) {
+            return writeBehind.get().toggle(recipeID, userID);
+        }
+        if (!recipeRepository.existsById(recipeID)) {
+            throw new IllegalStateException("Recipe with ID " + recipeID + " not found");
+        }
+
+        final boolean nowUpvoted;
+        List<Timestamp> removed = jdbcTemplate.queryForList(
+                "delete from recipe_upvotes where recipe_id = ? and user_id = ? returning created_at",
+                Timestamp.class, recipeID, userID);
+        if (!removed.isEmpty()) {
+            recipeRepository.adjustUpvotes(recipeID, -1);
+            trendingService.retractUpvote(recipeID, removed.get(0).toInstant());
+            nowUpvoted = false;
+        } else {
+            // a concurrent toggle by the same user may have inserted first, then there is nothing to count
+            if (recipeUpvoteRepository.insertIfAbsent(recipeID, userID) > 0) {
+                recipeRepository.adjustUpvotes(recipeID, 1);
+                trendingService.recordUpvote(recipeID, null);
+            }
+            nowUpvoted = true;
+        }
+
+        return new ToggleResult(recipeRepository.findUpvotesByRecipeID(recipeID), nowUpvoted);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.recipeDB.service;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.Serial;
+import java.util.Collection;
+
+/**
+ * The authenticated principal. Carries the user's id so write paths can reference the
+ * User row (getReferenceById) without selecting it by username on every request.
+ */
+@Getter
+public class RecipeUserDetails extends User {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int userID;
+
+    public RecipeUserDetails(int userID, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.userID = userID;
+    }
+}
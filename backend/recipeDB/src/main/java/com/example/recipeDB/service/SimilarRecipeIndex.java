@@ -0,0 +1,368 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.EnumMasks;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * The {@link #NEIGHBOURS} most similar recipes of every recipe, by Jaccard similarity of their
+ * tag and ingredient sets, precomputed so a lookup is reading one slice of an int array.
+ *
+ * Candidates come from MinHash with banding (LSH): every recipe's feature set (tags and
+ * ingredients as one bitmask) gets BANDS keys of ROWS min-hashes each, and recipes sharing a
+ * band key are likely similar. Each band is one sorted long[] of (key, id) pairs, a bucket is
+ * a binary-searched range. With only 45 features staple combinations make a few buckets very
+ * large, so at most MAX_BUCKET_CANDIDATES members are read per bucket; the candidates are then
+ * ranked by their exact similarity.
+ *
+ * Built in the background from {@link RecipeFilterIndex} on startup and on recipes.similar.rebuild-cron.
+ * RecipeController keeps it current through {@link #put} and {@link #remove}: a new or edited
+ * recipe gets its neighbours computed right away (recipes added since the last build are
+ * always candidates) and is offered to those neighbours' lists in turn.
+ *
+ * Memory is 8 bytes per recipe id for the features, 4 * NEIGHBOURS for the neighbours and
+ * 8 * BANDS for the bands, about 110 MB for a million recipes; see SimilarRecipeBenchmark for
+ * build and lookup times.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SimilarRecipeIndex {
+    public static final int NEIGHBOURS = 10;
+    private static final int BANDS = 8;
+    private static final int ROWS = 4;
+    private static final int MAX_BUCKET_CANDIDATES = 64;
+    // recipes put since the last build; past this a rebuild is started
+    private static final int MAX_RECENT = 10_000;
+    private static final int TAG_BITS = Tag.values().length;
+
+    static {
+        if (TAG_BITS + Ingredient.values().length > 64) {
+            throw new IllegalStateException("Tags and ingredients must fit in one 64-bit feature set");
+        }
+    }
+
+    // min-hash h maps feature bit b to PERMUTATIONS[h][b], fixed so builds are reproducible
+    private static final byte[][] PERMUTATIONS = permutations(BANDS * ROWS, new Random(42));
+
+    private final RecipeFilterIndex recipeFilterIndex;
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "similar-recipe-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    @Value("${recipes.similar.enabled:true}")
+    private boolean enabled = true;
+
+    // features by recipe id (0 = none), neighbours in slices of NEIGHBOURS (0 = empty),
+    // bands as sorted (key << 32 | id); features and neighbours grow together on put
+    private record State(long[] features, int[] neighbours, long[][] bands) {}
+
+    private volatile State state = new State(new long[0], new int[0], new long[BANDS][0]);
+    private volatile boolean ready;
+    // ids put since the build that produced state, guarded by this
+    private int[] recent = new int[16];
+    private int recentSize;
+    private Set<Integer> touchedDuringBuild;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // after RecipeFilterIndex has been built
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void onStartup() {
+        if (enabled) rebuildInBackground();
+    }
+
+    // on the builder thread, a rebuild takes seconds and would hold up the other scheduled jobs
+    @Scheduled(cron = "${recipes.similar.rebuild-cron:0 45 * * * *}")
+    public void scheduledRebuild() {
+        if (enabled && ready) rebuildInBackground();
+    }
+
+    public void rebuildInBackground() {
+        if (!building.compareAndSet(false, true)) return;
+        builder.execute(() -> {
+            try {
+                build();
+            } catch (RuntimeException e) {
+                log.warn("Similar-recipe index build failed", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    // does nothing if a build is already running
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) return;
+        try {
+            build();
+        } finally {
+            building.set(false);
+        }
+    }
+
+    private void build() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            touchedDuringBuild = new HashSet<>();
+        }
+
+        long[] features = new long[recipeFilterIndex.capacity()];
+        recipeFilterIndex.forEachRecipe((id, tags, ingredients) -> {
+            if (id < features.length) features[id] = feature(tags, ingredients);
+        });
+        int[] ids = IntStream.range(0, features.length).filter(id -> features[id] != 0).toArray();
+
+        long[][] bands = new long[BANDS][ids.length];
+        IntStream.range(0, ids.length).parallel().forEach(i -> {
+            int[] keys = bandKeys(features[ids[i]]);
+            for (int b = 0; b < BANDS; b++) bands[b][i] = ((long) keys[b] << 32) | ids[i];
+        });
+        for (long[] band : bands) Arrays.parallelSort(band);
+
+        State built = new State(features, new int[features.length * NEIGHBOURS], bands);
+        Arrays.stream(ids).parallel().forEach(id -> computeNeighbours(built, id, new int[0], 0));
+
+        synchronized (this) {
+            State current = state;
+            recentSize = 0;
+            State merged = built;
+            // puts that raced with the build are newer than what it read
+            for (int id : touchedDuringBuild) {
+                merged = ensureCapacity(merged, id);
+                merged.features()[id] = id < current.features().length ? current.features()[id] : 0;
+                addRecent(id);
+            }
+            touchedDuringBuild = null;
+            state = merged;
+            for (int i = 0; i < recentSize; i++) refresh(merged, recent[i]);
+        }
+        ready = true;
+        log.info("Similar-recipe index built for {} recipes in {} ms, {} MB",
+                ids.length, (System.nanoTime() - started) / 1_000_000, memoryBytes() / (1024 * 1024));
+    }
+
+    public long memoryBytes() {
+        State s = state;
+        long bytes = s.features().length * 8L + s.neighbours().length * 4L;
+        for (long[] band : s.bands()) bytes += band.length * 8L;
+        return bytes;
+    }
+
+    public synchronized void put(int recipeId, Collection<Tag> tags, Collection<Ingredient> ingredients) {
+        if (!enabled) return;
+        State s = ensureCapacity(state, recipeId);
+        state = s;
+        s.features()[recipeId] = feature(EnumMasks.tagMask(tags), EnumMasks.ingredientMask(ingredients));
+        if (touchedDuringBuild != null) touchedDuringBuild.add(recipeId);
+        addRecent(recipeId);
+        if (ready) refresh(s, recipeId);
+        if (recentSize > MAX_RECENT && ready) rebuildInBackground();
+    }
+
+    // lookups skip it from now on, neighbour lists drop it on the next build
+    public synchronized void remove(int recipeId) {
+        if (!enabled) return;
+        State s = state;
+        if (recipeId < s.features().length) s.features()[recipeId] = 0;
+        if (touchedDuringBuild != null) touchedDuringBuild.add(recipeId);
+    }
+
+    /**
+     * Writes the ids of the recipes most similar to recipeId into outIds, most similar first,
+     * their similarity into outSimilarity, and returns how many were written.
+     */
+    public int similar(int recipeId, int[] outIds, double[] outSimilarity) {
+        State s = state;
+        long[] features = s.features();
+        if (recipeId <= 0 || recipeId >= features.length || features[recipeId] == 0) return 0;
+        long f = features[recipeId];
+
+        int[] ids = new int[NEIGHBOURS];
+        double[] sims = new double[NEIGHBOURS];
+        int n = 0;
+        int base = recipeId * NEIGHBOURS;
+        for (int i = 0; i < NEIGHBOURS; i++) {
+            int c = s.neighbours()[base + i];
+            if (c == 0 || c >= features.length || features[c] == 0) continue;
+            // edits since the neighbours were computed can change the order
+            n = offer(ids, sims, n, c, jaccard(f, features[c]));
+        }
+        int out = Math.min(n, outIds.length);
+        System.arraycopy(ids, 0, outIds, 0, out);
+        System.arraycopy(sims, 0, outSimilarity, 0, out);
+        return out;
+    }
+
+    // recomputes recipeId's neighbours and offers it to each of them, caller holds the lock
+    private void refresh(State s, int recipeId) {
+        int[] ids = computeNeighbours(s, recipeId, recent, recentSize);
+        long f = s.features()[recipeId];
+        for (int c : ids) {
+            if (c == 0) break;
+            offerToSlice(s, c, recipeId, jaccard(s.features()[c], f));
+        }
+    }
+
+    // returns the neighbours written to recipeId's slice
+    private static int[] computeNeighbours(State s, int recipeId, int[] extra, int extraSize) {
+        long[] features = s.features();
+        long f = features[recipeId];
+        int[] ids = new int[NEIGHBOURS];
+        double[] sims = new double[NEIGHBOURS];
+        int n = 0;
+        if (f != 0) {
+            int[] keys = bandKeys(f);
+            for (int b = 0; b < BANDS; b++) {
+                long[] band = s.bands()[b];
+                int from = lowerBound(band, (long) keys[b] << 32);
+                int to = lowerBound(band, (long) (keys[b] + 1) << 32);
+                int size = to - from;
+                if (size == 0) continue;
+                // start at a different member per recipe, so big buckets don't always yield the same few
+                int start = Math.floorMod(recipeId * 0x9E3779B9, size);
+                for (int i = 0, j = start; i < Math.min(size, MAX_BUCKET_CANDIDATES); i++, j = j + 1 == size ? 0 : j + 1) {
+                    int c = (int) band[from + j];
+                    if (c != recipeId && features[c] != 0) n = offer(ids, sims, n, c, jaccard(f, features[c]));
+                }
+            }
+            for (int i = 0; i < extraSize; i++) {
+                int c = extra[i];
+                if (c != recipeId && c < features.length && features[c] != 0) n = offer(ids, sims, n, c, jaccard(f, features[c]));
+            }
+        }
+        System.arraycopy(ids, 0, s.neighbours(), recipeId * NEIGHBOURS, NEIGHBOURS);
+        return ids;
+    }
+
+    // puts candidate into recipeId's slice if it beats the least similar entry there
+    private static void offerToSlice(State s, int recipeId, int candidate, double similarity) {
+        int base = recipeId * NEIGHBOURS;
+        long f = s.features()[recipeId];
+        int worst = -1;
+        double worstSim = Double.MAX_VALUE;
+        for (int i = 0; i < NEIGHBOURS; i++) {
+            int c = s.neighbours()[base + i];
+            if (c == candidate) return;
+            double sim = c == 0 || s.features()[c] == 0 ? -1 : jaccard(f, s.features()[c]);
+            if (sim < worstSim) {
+                worstSim = sim;
+                worst = i;
+            }
+        }
+        if (similarity > worstSim) s.neighbours()[base + worst] = candidate;
+    }
+
+    // inserts into the top list kept sorted by similarity desc, then id; returns the new size
+    private static int offer(int[] ids, double[] sims, int n, int id, double sim) {
+        if (sim == 0 || (n == ids.length && !better(sim, id, sims[n - 1], ids[n - 1]))) return n;
+        for (int i = 0; i < n; i++) {
+            if (ids[i] == id) return n;
+        }
+        int i = n == ids.length ? n - 1 : n++;
+        while (i > 0 && better(sim, id, sims[i - 1], ids[i - 1])) {
+            ids[i] = ids[i - 1];
+            sims[i] = sims[i - 1];
+            i--;
+        }
+        ids[i] = id;
+        sims[i] = sim;
+        return n;
+    }
+
+    private static boolean better(double sim, int id, double otherSim, int otherId) {
+        return sim > otherSim || (sim == otherSim && id < otherId);
+    }
+
+    private void addRecent(int id) {
+        if (recentSize == recent.length) recent = Arrays.copyOf(recent, recentSize * 2);
+        recent[recentSize++] = id;
+    }
+
+    private static State ensureCapacity(State s, int recipeId) {
+        if (recipeId < s.features().length) return s;
+        int size = Math.max(recipeId + 1, s.features().length + (s.features().length >> 1));
+        return new State(Arrays.copyOf(s.features(), size), Arrays.copyOf(s.neighbours(), size * NEIGHBOURS), s.bands());
+    }
+
+    static long feature(long tags, long ingredients) {
+        return (tags & ((1L << TAG_BITS) - 1)) | (ingredients << TAG_BITS);
+    }
+
+    static double jaccard(long a, long b) {
+        int union = Long.bitCount(a | b);
+        return union == 0 ? 0 : (double) Long.bitCount(a & b) / union;
+    }
+
+    private static int[] bandKeys(long feature) {
+        int[] keys = new int[BANDS];
+        for (int b = 0; b < BANDS; b++) {
+            int key = 0;
+            for (int r = 0; r < ROWS; r++) {
+                byte[] perm = PERMUTATIONS[b * ROWS + r];
+                int min = 63;
+                for (long bits = feature; bits != 0; bits &= bits - 1) {
+                    min = Math.min(min, perm[Long.numberOfTrailingZeros(bits)]);
+                }
+                key = (key << 6) | min;
+            }
+            keys[b] = key;
+        }
+        return keys;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static byte[][] permutations(int count, Random random) {
+        byte[][] perms = new byte[count][64];
+        for (byte[] perm : perms) {
+            for (int i = 0; i < 64; i++) perm[i] = (byte) i;
+            for (int i = 63; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                byte t = perm[i];
+                perm[i] = perm[j];
+                perm[j] = t;
+            }
+        }
+        return perms;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.repository.SequenceIdAllocator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Seeds a synthetic catalog at scale when the app starts with the seed profile
+ * (SPRING_PROFILES_ACTIVE=seed, volumes in application-seed.properties). The same seed.random-seed
+ * always produces the same users, recipes, comments and upvotes, so load tests and benchmarks
+ * compare like with like. Only the ids depend on the sequences.
+ *
+ * Tags and ingredients follow skewed weights (staples and quick recipes are common), recipes
+ * respect their dietary tags, upvotes are heavy-tailed (a few recipes go viral) and comment
+ * counts are exponential. Everything is written with JDBC batches, one transaction per
+ * seed.batch-size recipes. Users are named seed-user-N and all share seed.password.
+ *
+ * Comments and upvotes are dated within the year before seed.base-time, and trending is scored
+ * from scratch once everything is in. Trending only counts the last few half-lives before now,
+ * so move seed.base-time close to the run date when trending matters.
+ *
+ * Seeding is skipped once seed users own seed.recipes recipes. Users go in first and recipes
+ * batch by batch, so a run that died halfway leaves fewer. That is reported instead of being
+ * taken for a finished catalog, and the database has to be recreated (create.sql) first.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+public class SyntheticDataGenerator implements ApplicationRunner {
+    public static final String USERNAME_PREFIX = "seed-user-";
+
+    private static final Map<Tag, Integer> TAG_WEIGHTS = new EnumMap<>(Map.ofEntries(
+            Map.entry(Tag.QUICK_EASY, 30), Map.entry(Tag.VEGETARIAN, 20), Map.entry(Tag.HIGH_PROTEIN, 18),
+            Map.entry(Tag.GLUTEN_FREE, 15), Map.entry(Tag.DESSERT, 12), Map.entry(Tag.LOW_CARB, 12),
+            Map.entry(Tag.DAIRY_FREE, 10), Map.entry(Tag.VEGAN, 8), Map.entry(Tag.APPETIZER, 8),
+            Map.entry(Tag.KETO, 6), Map.entry(Tag.PALEO, 4)));
+    // anything not listed weighs 6
+    private static final Map<Ingredient, Integer> INGREDIENT_WEIGHTS = new EnumMap<>(Map.ofEntries(
+            Map.entry(Ingredient.SALT, 40), Map.entry(Ingredient.OLIVE_OIL, 30), Map.entry(Ingredient.GARLIC, 30),
+            Map.entry(Ingredient.ONIONS, 28), Map.entry(Ingredient.PEPPER, 28), Map.entry(Ingredient.BUTTER, 20),
+            Map.entry(Ingredient.EGGS, 20), Map.entry(Ingredient.FLOUR, 18), Map.entry(Ingredient.SUGAR, 18),
+            Map.entry(Ingredient.TOMATOES, 16), Map.entry(Ingredient.MILK, 14), Map.entry(Ingredient.CHICKEN, 14),
+            Map.entry(Ingredient.CHEESE, 14), Map.entry(Ingredient.RICE, 10), Map.entry(Ingredient.PASTA, 10),
+            Map.entry(Ingredient.BEEF, 10), Map.entry(Ingredient.HALIBUT, 2), Map.entry(Ingredient.SHRIMP, 3)));
+
+    private static final Set<Ingredient> MEAT = EnumSet.of(Ingredient.CHICKEN, Ingredient.BEEF,
+            Ingredient.SHRIMP, Ingredient.HALIBUT, Ingredient.SALMON);
+    private static final Set<Ingredient> ANIMAL = EnumSet.of(Ingredient.EGGS, Ingredient.MILK, Ingredient.BUTTER,
+            Ingredient.CHEESE, Ingredient.HONEY);
+    private static final Set<Ingredient> DAIRY = EnumSet.of(Ingredient.MILK, Ingredient.BUTTER, Ingredient.CHEESE);
+    private static final Set<Ingredient> GLUTEN = EnumSet.of(Ingredient.FLOUR, Ingredient.PASTA, Ingredient.BREAD);
+
+    private static final String[] ADJECTIVES = {"Easy", "Classic", "Weeknight", "Crispy", "Creamy", "Spicy",
+            "Rustic", "Smoky", "Zesty", "Grandma's", "One-pan", "Slow-cooked", "Golden", "Hearty"};
+    private static final String[] DISHES = {"Bake", "Stew", "Salad", "Soup", "Skillet", "Bowl", "Tart",
+            "Pie", "Stir-fry", "Roast", "Curry", "Sandwich", "Casserole", "Pancakes"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceIdAllocator sequenceIdAllocator;
+    private final PasswordEncoder passwordEncoder;
+    private final TrendingService trendingService;
+
+    @Value("${seed.users:10000}")
+    private int users;
+
+    @Value("${seed.recipes:200000}")
+    private int recipes;
+
+    @Value("${seed.comments-per-recipe:4}")
+    private double commentsPerRecipe;
+
+    @Value("${seed.upvotes-per-recipe:15}")
+    private double upvotesPerRecipe;
+
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${seed.password:password}")
+    private String password;
+
+    @Value("${seed.batch-size:1000}")
+    private int batchSize;
+
+    // comment and upvote timestamps fall in the year before this, fixed so reruns are identical
+    @Value("${seed.base-time:2025-06-01T00:00:00Z}")
+    private Instant baseTime;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (isSeeded()) {
+            log.info("Seed data already present, skipping");
+            return;
+        }
+        long started = System.nanoTime();
+        Random random = new Random(randomSeed);
+        int[] userIds = seedUsers();
+
+        long comments = 0;
+        long upvotes = 0;
+        for (int from = 0; from < recipes; from += batchSize) {
+            int n = Math.min(batchSize, recipes - from);
+            long[] written = seedRecipes(random, userIds, n);
+            comments += written[0];
+            upvotes += written[1];
+            if ((from / batchSize) % 20 == 0) log.info("Seeded {} of {} recipes", from + n, recipes);
+        }
+        rescoreTrending();
+        log.info("Seeded {} users, {} recipes, {} comments and {} upvotes in {} s",
+                users, recipes, comments, upvotes, (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    // the batches bypass TrendingService, and its startup scoring only runs while trending_state is empty
+    private void rescoreTrending() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from recipe_trending");
+            jdbcTemplate.update("delete from trending_state");
+            trendingService.initialize();
+        });
+    }
+
+    private boolean isSeeded() {
+        Integer started = jdbcTemplate.queryForObject(
+                "select count(*) from users where username = ?", Integer.class, USERNAME_PREFIX + 0);
+        if (started == null || started == 0) return false;
+        Long seeded = jdbcTemplate.queryForObject("""
+                select count(*) from recipes r join users u on u.userid = r.user_id
+                where u.username like ?
+                """, Long.class, USERNAME_PREFIX + "%");
+        if (seeded != null && seeded >= recipes) return true;
+        throw new IllegalStateException("An earlier seed run stopped after " + seeded + " of " + recipes
+                + " recipes, recreate the database (create.sql) and start again");
+    }
+
+    private int[] seedUsers() {
+        // one hash for everyone, hashing per user would dominate the run
+        String encoded = passwordEncoder.encode(password);
+        int[] ids = sequenceIdAllocator.next("users_seq", users);
+        for (int from = 0; from < users; from += batchSize) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = from; i < Math.min(from + batchSize, users); i++) {
+                rows.add(new Object[]{ids[i], USERNAME_PREFIX + i, USERNAME_PREFIX + i + "@example.com", encoded});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                    "insert into users (userid, username, email, password) values (?, ?, ?, ?)", rows));
+        }
+        return ids;
+    }
+
+    // returns {comments, upvotes} written
+    private long[] seedRecipes(Random random, int[] userIds, int n) {
+        int[] recipeIds = sequenceIdAllocator.next("recipes_seq", n);
+        List<Object[]> recipeRows = new ArrayList<>(n);
+        List<Object[]> tagRows = new ArrayList<>();
+        List<Object[]> ingredientRows = new ArrayList<>();
+        List<Object[]> commentRows = new ArrayList<>();
+        List<Object[]> upvoteRows = new ArrayList<>();
+
+        for (int r = 0; r < n; r++) {
+            int id = recipeIds[r];
+            List<Tag> tags = pickTags(random);
+            List<Ingredient> ingredients = pickIngredients(random, tags);
+            Ingredient main = ingredients.get(0);
+            String title = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                    + capitalize(main.name().replace('_', ' ')) + " " + DISHES[random.nextInt(DISHES.length)];
+            int owner = userIds[random.nextInt(userIds.length)];
+
+            // Pareto with alpha 1.5: mean upvotesPerRecipe, a long tail of popular recipes
+            double xm = upvotesPerRecipe / 3;
+            int upvoteCount = (int) Math.min(userIds.length, Math.floor(xm / Math.pow(1 - random.nextDouble(), 1 / 1.5)) - 1);
+            upvoteCount = Math.max(upvoteCount, 0);
+            for (int u : distinctIndexes(random, userIds.length, upvoteCount)) {
+                Instant at = baseTime.minusSeconds(random.nextInt(365 * 24 * 3600));
+                upvoteRows.add(new Object[]{id, userIds[u], Timestamp.from(at)});
+            }
+
+            int commentCount = (int) (-commentsPerRecipe * Math.log(1 - random.nextDouble()));
+            for (int c = 0; c < commentCount; c++) {
+                Instant at = baseTime.minusSeconds(random.nextInt(365 * 24 * 3600));
+                commentRows.add(new Object[]{"Made this " + (c % 2 == 0 ? "tonight" : "again") + ", "
+                        + (random.nextBoolean() ? "turned out great" : "would add more " + main.name().toLowerCase()),
+                        Timestamp.from(at), id, userIds[random.nextInt(userIds.length)]});
+            }
+
+            recipeRows.add(new Object[]{id, title, "A " + title.toLowerCase() + " with " + ingredients.size() + " ingredients",
+                    5 + random.nextInt(40), random.nextInt(150), 1 + random.nextInt(8), 1 + random.nextInt(5),
+                    upvoteCount, steps(ingredients), "https://images.example.com/seed/" + (r % 500) + ".jpg", owner});
+            for (Tag t : tags) tagRows.add(new Object[]{id, t.name()});
+            for (Ingredient i : ingredients) ingredientRows.add(new Object[]{id, i.name()});
+        }
+
+        int[] commentIds = sequenceIdAllocator.next("comments_seq", commentRows.size());
+        for (int i = 0; i < commentRows.size(); i++) {
+            Object[] row = commentRows.get(i);
+            commentRows.set(i, new Object[]{commentIds[i], row[0], row[1], row[2], row[3]});
+        }
+        int[] upvoteIds = sequenceIdAllocator.next("recipe_upvotes_seq", upvoteRows.size());
+        for (int i = 0; i < upvoteRows.size(); i++) {
+            Object[] row = upvoteRows.get(i);
+            upvoteRows.set(i, new Object[]{upvoteIds[i], row[0], row[1], row[2]});
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("""
+                    insert into recipes (recipeid, title, description, prep_time, cook_time, servings, difficulty,
+                                         upvotes, steps, image_url, user_id)
+                    values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """, recipeRows);
+            jdbcTemplate.batchUpdate("insert into recipe_tags (recipe_recipeid, tags) values (?, ?)", tagRows);
+            jdbcTemplate.batchUpdate("insert into recipe_ingredients (recipe_recipeid, ingredients) values (?, ?)", ingredientRows);
+            jdbcTemplate.batchUpdate("insert into comments (id, text, created_at, recipe_id, user_id) values (?, ?, ?, ?, ?)", commentRows);
+            jdbcTemplate.batchUpdate("insert into recipe_upvotes (id, recipe_id, user_id, created_at) values (?, ?, ?, ?)", upvoteRows);
+        });
+        return new long[]{commentRows.size(), upvoteRows.size()};
+    }
+
+    private static List<Tag> pickTags(Random random) {
+        int count = 1 + random.nextInt(3);
+        List<Tag> tags = new ArrayList<>(count);
+        for (int attempt = 0; tags.size() < count && attempt < 10; attempt++) {
+            Tag tag = weighted(random, Tag.values(), t -> TAG_WEIGHTS.getOrDefault(t, 6));
+            if (!tags.contains(tag)) tags.add(tag);
+        }
+        return tags;
+    }
+
+    private static List<Ingredient> pickIngredients(Random random, List<Tag> tags) {
+        Set<Ingredient> excluded = EnumSet.noneOf(Ingredient.class);
+        if (tags.contains(Tag.VEGAN)) {
+            excluded.addAll(MEAT);
+            excluded.addAll(ANIMAL);
+        }
+        if (tags.contains(Tag.VEGETARIAN) || tags.contains(Tag.DESSERT)) excluded.addAll(MEAT);
+        if (tags.contains(Tag.DAIRY_FREE)) excluded.addAll(DAIRY);
+        if (tags.contains(Tag.GLUTEN_FREE)) excluded.addAll(GLUTEN);
+
+        int count = 4 + random.nextInt(7);
+        List<Ingredient> ingredients = new ArrayList<>(count);
+        if (tags.contains(Tag.DESSERT)) ingredients.add(Ingredient.SUGAR);
+        for (int attempt = 0; ingredients.size() < count && attempt < 50; attempt++) {
+            Ingredient ing = weighted(random, Ingredient.values(), i -> INGREDIENT_WEIGHTS.getOrDefault(i, 6));
+            if (!excluded.contains(ing) && !ingredients.contains(ing)) ingredients.add(ing);
+        }
+        return ingredients;
+    }
+
+    private static <E> E weighted(Random random, E[] values, ToIntFunction<E> weight) {
+        int total = 0;
+        for (E v : values) total += weight.applyAsInt(v);
+        int pick = random.nextInt(total);
+        for (E v : values) {
+            pick -= weight.applyAsInt(v);
+            if (pick < 0) return v;
+        }
+        return values[values.length - 1];
+    }
+
+    // Floyd's algorithm, k distinct values in [0, n)
+    private static Set<Integer> distinctIndexes(Random random, int n, int k) {
+        Set<Integer> picked = new HashSet<>();
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            if (!picked.add(t)) picked.add(j);
+        }
+        return picked;
+    }
+
+    private static String steps(List<Ingredient> ingredients) {
+        StringBuilder sb = new StringBuilder();
+        int step = 1;
+        for (Ingredient i : ingredients) {
+            sb.append(step++).append(". Prepare the ").append(i.name().toLowerCase().replace('_', ' ')).append(".\n");
+        }
+        return sb.append(step).append(". Combine, cook and serve.").toString();
+    }
+
+    private static String capitalize(String s) {
+        String lower = s.toLowerCase();
+        return Character.toUpperCase(lower.charAt(0)) + lower.substring(1);
+    }
+}
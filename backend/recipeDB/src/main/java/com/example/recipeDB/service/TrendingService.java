@@ -0,0 +1,155 @@
+package com.example.recipeDB.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trending scores with forward decay (see recipe_trending in schema.sql). An upvote or comment
+ * at time t adds weight * 2^((t - epoch) / half-life) to its recipe's score, so a recent event
+ * outweighs an old one exactly as if every score were decayed continuously, but nothing is ever
+ * rescanned: each event is one upsert, and the ranking is one read of idx_recipe_trending_score.
+ *
+ * Because the factors grow with time, {@link #rebase} periodically moves the epoch to now and
+ * scales every stored score down by the same factor, which keeps the order and the numbers
+ * small, and prunes recipes whose score has decayed to nothing. It only touches the recipes
+ * active within the last few half-lives, never upvote or comment history.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingService {
+    // recipes below this after a rebase drop out of recipe_trending
+    private static final double MIN_SCORE = 1e-3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${recipes.trending.half-life:PT24H}")
+    private Duration halfLife;
+
+    @Value("${recipes.trending.upvote-weight:1}")
+    private double upvoteWeight;
+
+    @Value("${recipes.trending.comment-weight:2}")
+    private double commentWeight;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        initialize();
+    }
+
+    /**
+     * Sets the epoch on the first start and scores the existing upvotes and comments once.
+     * Does nothing when trending_state already exists.
+     */
+    public void initialize() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update("insert into trending_state (id, epoch) values (1, now()) on conflict do nothing") == 0) {
+                return;
+            }
+            // exp() raises on underflow, very old events are clamped to a negligible weight
+            int scored = jdbcTemplate.update("""
+                    insert into recipe_trending (recipe_id, score)
+                    select recipe_id, score from (
+                        select e.recipe_id,
+                               sum(e.weight * exp(greatest(? * extract(epoch from e.created_at - s.epoch)::float8, -700))) as score
+                        from (select recipe_id, created_at, cast(? as double precision) as weight from recipe_upvotes
+                              union all
+                              select recipe_id, created_at, cast(? as double precision) from comments) e
+                        cross join trending_state s
+                        group by e.recipe_id
+                    ) scored
+                    where score >= ?
+                    """, rate(), upvoteWeight, commentWeight, MIN_SCORE);
+            log.info("Trending scores initialized for {} recipes", scored);
+        });
+    }
+
+    // at null means the transaction's now(), the created_at default of the recipe_upvotes row
+    public void recordUpvote(int recipeID, Instant at) {
+        record(recipeID, upvoteWeight, at);
+    }
+
+    // at is when the upvote was cast, so exactly what it added is taken back
+    public void retractUpvote(int recipeID, Instant at) {
+        record(recipeID, -upvoteWeight, at);
+    }
+
+    public void recordComment(int recipeID, Instant at) {
+        record(recipeID, commentWeight, at);
+    }
+
+    /**
+     * Runs in the caller's transaction if there is one. The share lock on the epoch row keeps
+     * a concurrent rebase from scaling the scores between reading the epoch and the upsert.
+     */
+    private void record(int recipeID, double weight, Instant at) {
+        jdbcTemplate.update("""
+                with s as (select epoch from trending_state where id = 1 for share)
+                insert into recipe_trending (recipe_id, score)
+                select ?, ? * exp(least(? * extract(epoch from coalesce(?::timestamptz, now()) - s.epoch)::float8, 700)) from s
+                on conflict (recipe_id) do update set score = recipe_trending.score + excluded.score
+                """, recipeID, weight, rate(), at == null ? null : Timestamp.from(at));
+    }
+
+    /**
+     * Batched {@link #recordUpvote}/{@link #retractUpvote} for the write-behind flush, one
+     * statement for the whole batch. recipeIDs[i] was upvoted (or the upvote taken back) at at[i].
+     */
+    public void recordUpvotes(int[] recipeIDs, Timestamp[] at, boolean retract) {
+        if (recipeIDs.length == 0) return;
+        jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    with s as (select epoch from trending_state where id = 1 for share)
+                    insert into recipe_trending (recipe_id, score)
+                    select e.recipe_id, sum(? * exp(least(? * extract(epoch from e.at - s.epoch)::float8, 700)))
+                    from unnest(?::int[], ?::timestamptz[]) as e(recipe_id, at), s
+                    group by e.recipe_id
+                    on conflict (recipe_id) do update set score = recipe_trending.score + excluded.score
+                    """);
+            ps.setDouble(1, retract ? -upvoteWeight : upvoteWeight);
+            ps.setDouble(2, rate());
+            ps.setArray(3, con.createArrayOf("integer", Arrays.stream(recipeIDs).boxed().toArray()));
+            ps.setArray(4, con.createArrayOf("timestamptz", at));
+            return ps;
+        });
+    }
+
+    /**
+     * Moves the epoch to now. Writers wait on the epoch row lock while the (pruned, so small)
+     * recipe_trending table is rescaled.
+     */
+    @Scheduled(cron = "${recipes.trending.rebase-cron:0 15 * * * *}")
+    public void rebase() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Double> elapsed = jdbcTemplate.queryForList(
+                    "select extract(epoch from now() - epoch)::float8 from trending_state where id = 1 for update",
+                    Double.class);
+            if (elapsed.isEmpty()) return;
+            double factor = Math.exp(-rate() * elapsed.get(0));
+
+            int pruned = jdbcTemplate.update("delete from recipe_trending where score * ? < ?", factor, MIN_SCORE);
+            int scaled = jdbcTemplate.update("update recipe_trending set score = score * ?", factor);
+            jdbcTemplate.update("update trending_state set epoch = now() where id = 1");
+            log.debug("Trending rebase scaled {} recipes by {}, pruned {}", scaled, factor, pruned);
+        });
+    }
+
+    // per second, score factors are exp(rate * seconds since the epoch)
+    private double rate() {
+        return Math.log(2) / halfLife.toSeconds();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repairs drift between the denormalized recipes.upvotes counter and the
+ * recipe_upvotes rows, e.g. after manual SQL or rows loaded from populate.sql.
+ * Only rows whose counter is wrong are written. A toggle racing with a run can
+ * leave one recipe off by one, which the next run repairs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UpvoteReconciliationService {
+    private final RecipeRepository recipeRepository;
+
+    @Value("${recipes.upvotes.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    // databases created before the counter was maintained start out with every recipe at 0
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) reconcile();
+    }
+
+    @Scheduled(cron = "${recipes.upvotes.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        int repaired = recipeRepository.reconcileUpvotes();
+        if (repaired > 0) {
+            log.warn("Repaired upvote counter drift on {} recipes", repaired);
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.config.CacheConfig;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.repository.RecipeUpvoteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind mode for upvote toggles (recipes.upvotes.write-behind.enabled=true). A toggle
+ * only flips the user's state in memory and answers with the stored count plus the pending
+ * changes, it takes no row locks. Every flush-interval the net changes go to Postgres in a few
+ * array statements: upvotes inserted, upvotes deleted, one counter update per recipe and the
+ * trending scores. A double tap, or any even number of toggles between flushes, nets out and
+ * writes nothing.
+ *
+ * Pending toggles live in a generation; a flush swaps in a fresh one and writes the old one
+ * while toggles carry on. The swap takes the write side of a lock every toggle holds the read
+ * side of, so a toggle never sees a half-swapped state. A failed write keeps its generation
+ * and is retried first on the next flush, and shutdown flushes until nothing is pending.
+ *
+ * Until a flush lands, reads other than the toggle response (the recipe detail, listings,
+ * ETags) show the count as of the last flush. For the moment between a flush committing and
+ * its generation being dropped, toggle responses on that recipe count its changes twice.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "recipes.upvotes.write-behind.enabled", havingValue = "true")
+public class UpvoteWriteBehindBuffer {
+    private static final int DRAIN_ATTEMPTS = 5;
+
+    private record Key(int recipeID, int userID) {}
+
+    // base is the stored state when the entry was created, upvoted the state the user sees now
+    private record Pending(boolean base, boolean upvoted, Instant at) {}
+
+    private static final class Generation {
+        final Map<Key, Pending> entries = new ConcurrentHashMap<>();
+        // sum of the count changes shown to users, per recipe
+        final Map<Integer, AtomicInteger> deltas = new ConcurrentHashMap<>();
+
+        int delta(int recipeID) {
+            AtomicInteger d = deltas.get(recipeID);
+            return d == null ? 0 : d.get();
+        }
+    }
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeUpvoteRepository recipeUpvoteRepository;
+    private final TrendingService trendingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache recipeDetailCache;
+
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Generation current = new Generation();
+    private volatile Generation inFlight = new Generation();
+
+    private final Timer flushTimer;
+    private final Counter rowsWritten;
+    private final Counter coalesced;
+    private final Counter flushFailures;
+
+    public UpvoteWriteBehindBuffer(RecipeRepository recipeRepository, RecipeUpvoteRepository recipeUpvoteRepository,
+                                   TrendingService trendingService, JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate, CacheManager cacheManager,
+                                   MeterRegistry meterRegistry) {
+        this.recipeRepository = recipeRepository;
+        this.recipeUpvoteRepository = recipeUpvoteRepository;
+        this.trendingService = trendingService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.recipeDetailCache = cacheManager.getCache(CacheConfig.RECIPE_DETAIL);
+
+        Gauge.builder("recipedb.upvotes.buffer.depth", this, b -> b.current.entries.size() + b.inFlight.entries.size())
+                .description("(recipe, user) pairs with toggles not yet written to the database")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("recipedb.upvotes.buffer.flush")
+                .description("Time to write one generation of buffered upvote toggles")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("recipedb.upvotes.buffer.rows_written")
+                .description("recipe_upvotes rows inserted or deleted by flushes")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("recipedb.upvotes.buffer.coalesced")
+                .description("Buffered (recipe, user) pairs whose toggles cancelled out")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("recipedb.upvotes.buffer.flush_failures")
+                .description("Flushes that failed and will be retried")
+                .register(meterRegistry);
+    }
+
+    public RecipeUpvoteService.ToggleResult toggle(int recipeID, int userID) {
+        swapLock.readLock().lock();
+        try {
+            int stored = recipeRepository.findUpvoteCount(recipeID).orElseThrow(
+                    () -> new IllegalStateException("Recipe with ID " + recipeID + " not found"));
+            Generation gen = current;
+            Generation flushing = inFlight;
+            Key key = new Key(recipeID, userID);
+
+            // the state this toggle flips: pending, about to be written, or stored
+            Boolean base = null;
+            if (!gen.entries.containsKey(key)) {
+                Pending p = flushing.entries.get(key);
+                base = p != null ? p.upvoted() : recipeUpvoteRepository.existsByRecipeIDAndUserID(recipeID, userID);
+            }
+            boolean fallback = Boolean.TRUE.equals(base);
+            Pending next = gen.entries.compute(key, (k, e) -> {
+                Pending flipped = e == null
+                        ? new Pending(fallback, !fallback, Instant.now())
+                        : new Pending(e.base(), !e.upvoted(), Instant.now());
+                gen.deltas.computeIfAbsent(recipeID, id -> new AtomicInteger()).addAndGet(flipped.upvoted() ? 1 : -1);
+                return flipped;
+            });
+            return new RecipeUpvoteService.ToggleResult(
+                    stored + flushing.delta(recipeID) + gen.delta(recipeID), next.upvoted());
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes pending toggles, a generation that failed last time first. Returns the number of
+     * recipe_upvotes rows inserted or deleted.
+     */
+    @Scheduled(fixedDelayString = "${recipes.upvotes.write-behind.flush-interval:PT1S}")
+    public synchronized int flush() {
+        if (inFlight.entries.isEmpty()) {
+            swapLock.writeLock().lock();
+            try {
+                inFlight = current;
+                current = new Generation();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        }
+        Generation gen = inFlight;
+        if (gen.entries.isEmpty()) return 0;
+
+        Timer.Sample sample = Timer.start();
+        Map<Integer, Integer> net;
+        try {
+            net = write(gen);
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.warn("Flushing {} buffered upvote toggles failed, retrying on the next flush", gen.entries.size(), e);
+            return 0;
+        } finally {
+            sample.stop(flushTimer);
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            inFlight = new Generation();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (recipeDetailCache != null) net.keySet().forEach(recipeDetailCache::evict);
+        int rows = net.values().stream().mapToInt(Math::abs).sum();
+        rowsWritten.increment(rows);
+        return rows;
+    }
+
+    @PreDestroy
+    public void drain() {
+        for (int attempt = 0; attempt < DRAIN_ATTEMPTS; attempt++) {
+            flush();
+            if (current.entries.isEmpty() && inFlight.entries.isEmpty()) return;
+        }
+        log.error("Shutting down with {} upvote toggles not written",
+                current.entries.size() + inFlight.entries.size());
+    }
+
+    // net rows written per recipe
+    private Map<Integer, Integer> write(Generation gen) {
+        List<Key> inserts = new ArrayList<>();
+        List<Timestamp> insertedAt = new ArrayList<>();
+        List<Key> deletes = new ArrayList<>();
+        for (var entry : gen.entries.entrySet()) {
+            Pending p = entry.getValue();
+            if (p.upvoted() == p.base()) {
+                coalesced.increment();
+            } else if (p.upvoted()) {
+                inserts.add(entry.getKey());
+                insertedAt.add(Timestamp.from(p.at()));
+            } else {
+                deletes.add(entry.getKey());
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            Map<Integer, Integer> net = new TreeMap<>();
+            List<Object[]> added = changedRows("""
+                    insert into recipe_upvotes (id, recipe_id, user_id, created_at)
+                    select nextval('recipe_upvotes_seq'), x.recipe_id, x.user_id, x.created_at
+                    from unnest(?::int[], ?::int[], ?::timestamptz[]) as x(recipe_id, user_id, created_at)
+                    where exists (select 1 from recipes r where r.recipeid = x.recipe_id)
+                      and exists (select 1 from users u where u.userid = x.user_id)
+                    on conflict (recipe_id, user_id) do nothing
+                    returning recipe_id, created_at
+                    """, inserts, insertedAt);
+            List<Object[]> removed = changedRows("""
+                    delete from recipe_upvotes u
+                    using unnest(?::int[], ?::int[]) as x(recipe_id, user_id)
+                    where u.recipe_id = x.recipe_id and u.user_id = x.user_id
+                    returning u.recipe_id, u.created_at
+                    """, deletes, null);
+            added.forEach(row -> net.merge((Integer) row[0], 1, Integer::sum));
+            removed.forEach(row -> net.merge((Integer) row[0], -1, Integer::sum));
+
+            if (!net.isEmpty()) {
+                jdbcTemplate.update(con -> {
+                    var ps = con.prepareStatement("""
+                            update recipes r set upvotes = r.upvotes + d.delta, revision = nextval('recipe_revision_seq')
+                            from unnest(?::int[], ?::int[]) as d(recipe_id, delta)
+                            where r.recipeid = d.recipe_id
+                            """);
+                    ps.setArray(1, intArray(con, net.keySet().stream().toList()));
+                    ps.setArray(2, intArray(con, net.values().stream().toList()));
+                    return ps;
+                });
+            }
+            trendingService.recordUpvotes(recipeIDs(added), timestamps(added), false);
+            trendingService.recordUpvotes(recipeIDs(removed), timestamps(removed), true);
+            return net;
+        });
+    }
+
+    // rows actually inserted or deleted as {recipe_id, created_at}; at is null for deletes
+    private List<Object[]> changedRows(String sql, List<Key> keys, List<Timestamp> at) {
+        if (keys.isEmpty()) return new ArrayList<>();
+        return jdbcTemplate.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setArray(1, intArray(con, keys.stream().map(Key::recipeID).toList()));
+            ps.setArray(2, intArray(con, keys.stream().map(Key::userID).toList()));
+            if (at != null) ps.setArray(3, con.createArrayOf("timestamptz", at.toArray()));
+            return ps;
+        }, (rs, i) -> new Object[]{rs.getInt(1), rs.getTimestamp(2)});
+    }
+
+    private static Array intArray(Connection con, List<Integer> values) throws SQLException {
+        return con.createArrayOf("integer", values.toArray());
+    }
+
+    private static int[] recipeIDs(List<Object[]> rows) {
+        return rows.stream().mapToInt(row -> (Integer) row[0]).toArray();
+    }
+
+    private static Timestamp[] timestamps(List<Object[]> rows) {
+        return rows.stream().map(row -> (Timestamp) row[1]).toArray(Timestamp[]::new);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.recipeDB.service;
+
+import com.example.recipeDB.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Repairs user_stats rows that differ from the recipes and comments they summarize. The triggers
+ * in schema.sql keep the table current, this fills it for data written before they existed and
+ * catches anything they missed. A write racing with a run can leave one user's totals behind,
+ * which the next run repairs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+    private final UserRepository userRepository;
+
+    @Value("${recipes.user-stats.reconcile-on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) reconcile();
+    }
+
+    @Scheduled(cron = "${recipes.user-stats.reconcile-cron:0 40 3 * * *}")
+    public int reconcile() {
+        int repaired = userRepository.reconcileUserStats();
+        if (repaired > 0) {
+            log.info("Rewrote profile totals of {} users", repaired);
+        }
+        return repaired;
+    }
+}
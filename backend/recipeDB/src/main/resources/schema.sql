@@ -0,0 +1,196 @@
+-- Runs after Hibernate's ddl-auto=update on every startup (see spring.sql.init.* in
+-- application.properties), for schema objects JPA annotations cannot describe.
+-- Every statement must be idempotent. Keep in sync with create.sql.
+
+CREATE INDEX IF NOT EXISTS idx_recipes_total_time
+    ON recipes ((coalesce(prep_time, 0) + coalesce(cook_time, 0)), recipeid);
+
+-- recipes.search_vector itself is created by ddl-auto from Recipe.SEARCH_VECTOR_DEFINITION
+CREATE INDEX IF NOT EXISTS idx_recipes_search_vector
+    ON recipes USING gin (search_vector);
+
+-- entity ids are allocated in blocks of 50 (allocationSize, pooled-lo). Databases created by
+-- create.sql or an older ddl-auto still have INCREMENT BY 1; after populate.sql's setval the
+-- next block simply starts past the existing rows.
+ALTER SEQUENCE IF EXISTS users_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS recipes_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS comments_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS recipe_upvotes_seq INCREMENT BY 50;
+
+-- recipes.revision is stamped from a global sequence on insert and on every edit, comment and
+-- upvote, so a recipe's revision identifies its current state and a listing's newest revision,
+-- plus what has left it, identifies the listing (HttpCachingInterceptor, see the end of this
+-- file). Read-only on Recipe: inserts take the default and only native updates write it.
+-- Adding the column stamps existing rows.
+CREATE SEQUENCE IF NOT EXISTS recipe_revision_seq;
+ALTER TABLE recipes ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT nextval('recipe_revision_seq');
+CREATE INDEX IF NOT EXISTS idx_recipes_user_revision ON recipes (user_id, revision);
+
+-- when an upvote happened, for trending (TrendingService). Not mapped on RecipeUpvote, inserts
+-- take the default; upvotes from before the column existed count as of the upgrade.
+ALTER TABLE recipe_upvotes ADD COLUMN IF NOT EXISTS created_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- trending scores with forward decay: an event at time t adds weight * 2^((t - epoch) / half-life),
+-- so older events weigh relatively less without ever being rescanned. The single trending_state
+-- row holds the epoch, which the rebase job moves forward while scaling every score down.
+CREATE TABLE IF NOT EXISTS trending_state (
+    id    INTEGER PRIMARY KEY CHECK (id = 1),
+    epoch TIMESTAMPTZ NOT NULL
+);
+CREATE TABLE IF NOT EXISTS recipe_trending (
+    recipe_id INTEGER PRIMARY KEY REFERENCES recipes (recipeid) ON DELETE CASCADE,
+    score     DOUBLE PRECISION NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_recipe_trending_score ON recipe_trending (score DESC, recipe_id DESC);
+
+-- per-user profile totals, so a profile is one primary-key lookup instead of aggregating the
+-- user's recipes and comments. Kept current by the statement-level triggers below, which see
+-- every write path alike (JPA, COPY imports, seed data, the upvote counter, cascades) and do one
+-- grouped statement per write however many rows it touched. Average difficulty is
+-- difficulty_sum / difficulty_count over recipes that have one. Inserts upsert, deletes and
+-- updates only touch existing rows so a cascading user delete never recreates one; missing or
+-- drifted rows are repaired by UserStatsService, which also fills the table on first start.
+-- Each upvote counter update also updates the owner's row, so upvotes on one owner's recipes
+-- queue on that row lock; with write-behind upvotes that is once per flush.
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id          INTEGER PRIMARY KEY REFERENCES users (userid) ON DELETE CASCADE,
+    recipe_count     INTEGER NOT NULL DEFAULT 0,
+    upvotes_received BIGINT  NOT NULL DEFAULT 0,
+    comment_count    INTEGER NOT NULL DEFAULT 0,
+    difficulty_sum   BIGINT  NOT NULL DEFAULT 0,
+    difficulty_count INTEGER NOT NULL DEFAULT 0
+);
+CREATE INDEX IF NOT EXISTS idx_recipes_user_recipeid ON recipes (user_id, recipeid);
+
+-- function bodies are quoted strings rather than $$ blocks, the script runner splits on ; outside quotes
+CREATE OR REPLACE FUNCTION user_stats_recipes() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO user_stats AS s (user_id, recipe_count, upvotes_received, difficulty_sum, difficulty_count)
+        SELECT user_id, count(*), sum(coalesce(upvotes, 0)), coalesce(sum(difficulty), 0), count(difficulty)
+        FROM new_rows GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET
+            recipe_count = s.recipe_count + excluded.recipe_count,
+            upvotes_received = s.upvotes_received + excluded.upvotes_received,
+            difficulty_sum = s.difficulty_sum + excluded.difficulty_sum,
+            difficulty_count = s.difficulty_count + excluded.difficulty_count;
+    ELSIF TG_OP = ''DELETE'' THEN
+        UPDATE user_stats s SET
+            recipe_count = s.recipe_count - d.recipes,
+            upvotes_received = s.upvotes_received - d.upvotes,
+            difficulty_sum = s.difficulty_sum - d.difficulty_sum,
+            difficulty_count = s.difficulty_count - d.difficulty_count
+        FROM (SELECT user_id, count(*) AS recipes, sum(coalesce(upvotes, 0)) AS upvotes,
+                     coalesce(sum(difficulty), 0) AS difficulty_sum, count(difficulty) AS difficulty_count
+              FROM old_rows GROUP BY user_id) d
+        WHERE s.user_id = d.user_id;
+    ELSE
+        UPDATE user_stats s SET
+            upvotes_received = s.upvotes_received + d.upvotes,
+            difficulty_sum = s.difficulty_sum + d.difficulty_sum,
+            difficulty_count = s.difficulty_count + d.difficulty_count
+        FROM (SELECT n.user_id,
+                     sum(coalesce(n.upvotes, 0) - coalesce(o.upvotes, 0)) AS upvotes,
+                     sum(coalesce(n.difficulty, 0) - coalesce(o.difficulty, 0)) AS difficulty_sum,
+                     sum((n.difficulty IS NOT NULL)::int - (o.difficulty IS NOT NULL)::int) AS difficulty_count
+              FROM new_rows n JOIN old_rows o ON o.recipeid = n.recipeid
+              WHERE n.upvotes IS DISTINCT FROM o.upvotes OR n.difficulty IS DISTINCT FROM o.difficulty
+              GROUP BY n.user_id) d
+        WHERE s.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE OR REPLACE FUNCTION user_stats_comments() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO user_stats AS s (user_id, comment_count)
+        SELECT user_id, count(*) FROM new_rows GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET comment_count = s.comment_count + excluded.comment_count;
+    ELSE
+        UPDATE user_stats s SET comment_count = s.comment_count - d.comments
+        FROM (SELECT user_id, count(*) AS comments FROM old_rows GROUP BY user_id) d
+        WHERE s.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END';
+
+-- triggers with transition tables take one event each; each is created once, recreating would lock the tables on every start
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipes''::regclass AND tgname = ''user_stats_recipes_insert'') THEN
+        CREATE TRIGGER user_stats_recipes_insert AFTER INSERT ON recipes
+            REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipes''::regclass AND tgname = ''user_stats_recipes_delete'') THEN
+        CREATE TRIGGER user_stats_recipes_delete AFTER DELETE ON recipes
+            REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipes''::regclass AND tgname = ''user_stats_recipes_update'') THEN
+        CREATE TRIGGER user_stats_recipes_update AFTER UPDATE ON recipes
+            REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''comments''::regclass AND tgname = ''user_stats_comments_insert'') THEN
+        CREATE TRIGGER user_stats_comments_insert AFTER INSERT ON comments
+            REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''comments''::regclass AND tgname = ''user_stats_comments_delete'') THEN
+        CREATE TRIGGER user_stats_comments_delete AFTER DELETE ON comments
+            REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments();
+    END IF;
+END';
+
+-- listing ETags (HttpCachingInterceptor) from indexes instead of aggregates over whole listings.
+-- /all takes count and max revision over the rows it returns, read from a covering index.
+-- recipe_tags carries its recipe's revision, so a tag's newest one is a single lookup in
+-- idx_recipe_tags_tag_revision; the triggers below stamp it on insert and copy every revision
+-- bump, one grouped statement per write. A recipe leaving a listing raises no revision, so a
+-- recipe_tags delete (the recipe deleted, or its tags edited) stamps the recipe_removals row
+-- instead. Those deletes queue on that one row; upvotes and comments never touch it.
+CREATE INDEX IF NOT EXISTS idx_recipes_recipeid_revision ON recipes (recipeid) INCLUDE (revision);
+ALTER TABLE recipe_tags ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT 0;
+UPDATE recipe_tags t SET revision = r.revision FROM recipes r WHERE t.recipe_recipeid = r.recipeid AND t.revision = 0;
+CREATE INDEX IF NOT EXISTS idx_recipe_tags_tag_revision ON recipe_tags (tags, revision);
+CREATE TABLE IF NOT EXISTS recipe_removals (
+    id       INTEGER PRIMARY KEY CHECK (id = 1),
+    revision BIGINT NOT NULL
+);
+INSERT INTO recipe_removals (id, revision) VALUES (1, 0) ON CONFLICT DO NOTHING;
+
+CREATE OR REPLACE FUNCTION recipe_tags_stamp() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    NEW.revision := coalesce((SELECT revision FROM recipes WHERE recipeid = NEW.recipe_recipeid), 0);
+    RETURN NEW;
+END';
+
+CREATE OR REPLACE FUNCTION recipe_tags_revisions() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    UPDATE recipe_tags t SET revision = n.revision
+    FROM new_rows n
+    WHERE t.recipe_recipeid = n.recipeid AND t.revision <> n.revision;
+    RETURN NULL;
+END';
+
+CREATE OR REPLACE FUNCTION recipe_tags_removed() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF EXISTS (SELECT 1 FROM old_rows) THEN
+        UPDATE recipe_removals SET revision = nextval(''recipe_revision_seq'') WHERE id = 1;
+    END IF;
+    RETURN NULL;
+END';
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipe_tags''::regclass AND tgname = ''recipe_tags_stamp'') THEN
+        CREATE TRIGGER recipe_tags_stamp BEFORE INSERT ON recipe_tags
+            FOR EACH ROW EXECUTE FUNCTION recipe_tags_stamp();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipe_tags''::regclass AND tgname = ''recipe_tags_removed'') THEN
+        CREATE TRIGGER recipe_tags_removed AFTER DELETE ON recipe_tags
+            REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION recipe_tags_removed();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = ''recipes''::regclass AND tgname = ''recipe_tags_revisions'') THEN
+        CREATE TRIGGER recipe_tags_revisions AFTER UPDATE ON recipes
+            REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION recipe_tags_revisions();
+    END IF;
+END';
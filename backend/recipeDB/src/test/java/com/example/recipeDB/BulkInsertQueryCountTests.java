@@ -0,0 +1,142 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Comment;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts recipes with two tags, three ingredients and a comment each, once the way writes used
+ * to be issued (one nextval per entity, one insert per row) and once with pooled-lo ids and JDBC
+ * batching, and compares the statements sent. BulkInsertBenchmark times the same two paths over
+ * 100k recipes.
+ */
+@SpringBootTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BulkInsertQueryCountTests {
+
+    private static final int RECIPES = 500;
+    private static final int CHUNK = 100;
+    // recipe, 2 tags, 3 ingredients, comment and the two explicit nextvals
+    private static final int ROW_AT_A_TIME_STATEMENTS = 9;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        String seeded = "(select recipeid from recipes r join users u on u.userid = r.user_id where u.username like 'bulk-insert-%')";
+        jdbcTemplate.update("delete from comments where recipe_id in " + seeded);
+        jdbcTemplate.update("delete from recipe_tags where recipe_recipeid in " + seeded);
+        jdbcTemplate.update("delete from recipe_ingredients where recipe_recipeid in " + seeded);
+        jdbcTemplate.update("delete from recipes where recipeid in " + seeded);
+        jdbcTemplate.update("delete from users where username like 'bulk-insert-%'");
+    }
+
+    @Test
+    void pooledIdsAndBatchingCutRoundTrips() {
+        long before = insert("bulk-insert-before", false);
+        long after = insert("bulk-insert-after", true);
+
+        assertEquals(2 * RECIPES, countSeeded());
+        assertTrue(before >= (long) ROW_AT_A_TIME_STATEMENTS * RECIPES, "row-at-a-time: " + before);
+        // about 9 per 50 recipes: one batch per table and block of ids, plus a nextval per sequence
+        assertTrue(after <= RECIPES / 4, "pooled + batched: " + after);
+        assertTrue(after * 10 < before, before + " vs " + after);
+    }
+
+    // prepared statements sent
+    private long insert(String username, boolean batched) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        User owner = transactionTemplate.execute(status -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setEmail(username + "@example.com");
+            user.setPassword("{noop}password");
+            entityManager.persist(user);
+            return user;
+        });
+        for (int from = 0; from < RECIPES; from += CHUNK) {
+            int start = from, end = Math.min(from + CHUNK, RECIPES);
+            transactionTemplate.executeWithoutResult(status -> {
+                Session session = entityManager.unwrap(Session.class);
+                User ref = entityManager.getReference(User.class, owner.getUserID());
+                if (!batched) session.setJdbcBatchSize(1);
+                for (int i = start; i < end; i++) {
+                    Recipe recipe = newRecipe(ref, i);
+                    if (!batched) {
+                        // allocationSize is fixed by the mapping, so pay the old allocationSize = 1 cost
+                        // explicitly: one nextval round trip per recipe and per comment
+                        nextval("recipes_seq");
+                        nextval("comments_seq");
+                    }
+                    entityManager.persist(recipe);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Recipe newRecipe(User owner, int i) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Bulk recipe " + i);
+        recipe.setDescription("seeded by BulkInsertQueryCountTests");
+        recipe.setPrepTime(5 + i % 30);
+        recipe.setCookTime(10 + i % 60);
+        recipe.setServings(1 + i % 6);
+        recipe.setDifficulty(1 + i % 5);
+        recipe.setSteps("1. prep\n2. cook\n3. serve");
+        Tag[] tags = Tag.values();
+        Ingredient[] ingredients = Ingredient.values();
+        recipe.setTags(List.of(tags[i % tags.length], tags[(i + 1) % tags.length]));
+        recipe.setIngredients(List.of(ingredients[i % ingredients.length], ingredients[(i + 1) % ingredients.length],
+                ingredients[(i + 2) % ingredients.length]));
+        recipe.setOwner(owner);
+
+        Comment comment = new Comment();
+        comment.setText("Tried it, works");
+        comment.setRecipe(recipe);
+        comment.setAuthor(owner);
+        recipe.getComments().add(comment);
+        return recipe;
+    }
+
+    private void nextval(String sequence) {
+        entityManager.createNativeQuery("select nextval('" + sequence + "')").getSingleResult();
+    }
+
+    private long countSeeded() {
+        Long n = jdbcTemplate.queryForObject(
+                "select count(*) from recipes r join users u on u.userid = r.user_id where u.username like 'bulk-insert-%'",
+                Long.class);
+        return n == null ? 0 : n;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class HttpCachingTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+
+    private User owner;
+    private User voter;
+    private Recipe recipe;
+
+    @BeforeEach
+    void seed() {
+        owner = newUser(entityManager, "etag-owner");
+        voter = newUser(entityManager, "etag-voter");
+        recipe = newRecipe(entityManager, owner, "ETag pancakes",
+                r -> r.setIngredients(List.of(Ingredient.FLOUR, Ingredient.EGGS)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void detailIsNotModifiedUntilTheRecipeChanges() throws Exception {
+        String path = "/api/recipes/r/byId/" + recipe.getRecipeID();
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        recipeUpvoteService.toggle(recipe.getRecipeID(), voter.getUserID());
+        // the requests share this persistence context, which still holds the old revision
+        entityManager.clear();
+
+        String changed = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void listingETagTracksMembershipAndRepresentation() throws Exception {
+        String path = "/api/recipes/u/" + owner.getUsername();
+        String full = etag(path);
+        String summary = etag(path + "?view=summary");
+        assertNotEquals(full, summary);
+        assertEquals(full, etag(path));
+
+        newRecipe(entityManager, owner, "ETag waffles");
+        entityManager.flush();
+
+        assertNotEquals(full, etag(path));
+    }
+
+    @Test
+    void tagListingETagTracksRemovals() throws Exception {
+        String path = "/api/recipes/tags?tags=DESSERT";
+        String before = etag(path);
+
+        entityManager.remove(entityManager.find(Recipe.class, recipe.getRecipeID()));
+        entityManager.flush();
+
+        assertNotEquals(before, etag(path));
+    }
+
+    @Test
+    void tagListingETagIgnoresParameterOrder() throws Exception {
+        assertEquals(etag("/api/recipes/tags?tags=VEGAN,DESSERT"), etag("/api/recipes/tags?tags=DESSERT&tags=VEGAN"));
+    }
+
+    @Test
+    void unknownRecipeIsLeftToTheController() throws Exception {
+        mockMvc.perform(get("/api/recipes/r/byId/" + Integer.MAX_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
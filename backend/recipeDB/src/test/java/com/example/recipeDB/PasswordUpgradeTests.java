@@ -0,0 +1,85 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a successful login re-encodes a hash below recipes.password.encode-id / bcrypt-strength
+@SpringBootTest
+@Transactional
+class PasswordUpgradeTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void noopHashIsReEncodedOnLogin() {
+        newUser("upgrade-noop", "{noop}secret");
+
+        login("upgrade-noop", "secret");
+
+        String stored = storedHash("upgrade-noop");
+        assertTrue(stored.startsWith("{bcrypt}$2a$10$"), stored);
+        assertTrue(passwordEncoder.matches("secret", stored));
+    }
+
+    @Test
+    void weakBcryptHashIsReEncodedOnLogin() {
+        newUser("upgrade-weak", "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret"));
+
+        login("upgrade-weak", "secret");
+
+        String stored = storedHash("upgrade-weak");
+        assertTrue(stored.startsWith("{bcrypt}$2a$10$"), stored);
+        assertTrue(passwordEncoder.matches("secret", stored));
+    }
+
+    @Test
+    void currentHashIsLeftAlone() {
+        String hash = passwordEncoder.encode("secret");
+        newUser("upgrade-current", hash);
+
+        login("upgrade-current", "secret");
+
+        assertEquals(hash, storedHash("upgrade-current"));
+    }
+
+    private void login(String username, String password) {
+        assertTrue(authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(username, password)).isAuthenticated());
+    }
+
+    private String storedHash(String username) {
+        return jdbcTemplate.queryForObject("select password from users where username = ?", String.class, username);
+    }
+
+    private void newUser(String username, String password) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword(password);
+        entityManager.persist(user);
+        entityManager.flush();
+    }
+}
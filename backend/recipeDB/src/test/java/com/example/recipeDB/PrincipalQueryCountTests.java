@@ -0,0 +1,123 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.RecipeUserDetails;
+import com.example.recipeDB.service.SimilarRecipeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// write paths take the user id from a RecipeUserDetails principal and never select the user
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PrincipalQueryCountTests {
+
+    private static final Pattern USER_QUERY = Pattern.compile("\\bUser\\b|\\busers\\b");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    @Autowired
+    private RecipeFilterIndex recipeFilterIndex;
+
+    @Autowired
+    private SimilarRecipeIndex similarRecipeIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private User author;
+    private Recipe recipe;
+    private Authentication auth;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        User owner = newUser(entityManager, "principal-owner");
+        author = newUser(entityManager, "principal-author");
+        recipe = newRecipe(entityManager, owner, "Principal pie");
+        entityManager.flush();
+        entityManager.clear();
+
+        auth = UsernamePasswordAuthenticationToken.authenticated(
+                new RecipeUserDetails(author.getUserID(), author.getUsername(), "", List.of()), null, List.of());
+        // for @PreAuthorize on the controller
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        // createRecipe put its recipe into the in-memory indexes, which the rollback doesn't undo
+        for (int id : jdbcTemplate.queryForList("select recipeid from recipes where user_id = ?", Integer.class, author.getUserID())) {
+            recipeFilterIndex.remove(id);
+            similarRecipeIndex.remove(id);
+        }
+    }
+
+    @Test
+    void createRecipeDoesNotSelectTheUser() {
+        recipeController.createRecipe("Principal tart", "", 5, 10, 2, 1, "bake", List.of(Tag.DESSERT), "",
+                List.of(Ingredient.BUTTER), auth);
+        entityManager.flush();
+
+        assertUserNotSelected();
+    }
+
+    @Test
+    void addCommentDoesNotSelectTheUser() {
+        assertEquals(author.getUsername(),
+                recipeController.addComment(recipe.getRecipeID(), "Flaky", auth).getBody().commenterUsername());
+        entityManager.flush();
+
+        assertUserNotSelected();
+    }
+
+    @Test
+    void toggleUpvoteDoesNotSelectTheUser() {
+        recipeController.toggleUpvote(recipe.getRecipeID(), auth);
+        entityManager.flush();
+
+        assertUserNotSelected();
+    }
+
+    private void assertUserNotSelected() {
+        EntityStatistics users = statistics.getEntityStatistics(User.class.getName());
+        assertEquals(0, users.getLoadCount() + users.getFetchCount());
+        for (String query : statistics.getQueries()) {
+            assertFalse(USER_QUERY.matcher(query).find(), query);
+        }
+    }
+}
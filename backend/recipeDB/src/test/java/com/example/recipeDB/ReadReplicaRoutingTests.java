@@ -0,0 +1,79 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.config.ReadRoutingInterceptor;
+import com.example.recipeDB.config.ReplicaRoutingDataSource;
+import com.example.recipeDB.repository.RecipeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// the primary's own URL as the only replica, which is never behind
+@SpringBootTest(properties = "recipes.datasource.replica-urls=${DB_URL}")
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void checkReplicas() {
+        replicaRoutingDataSource.checkReplicas();
+        assertEquals(1.0, meterRegistry.get("recipedb.datasource.replica.healthy").tag("pool", "replica-0").gauge().value());
+    }
+
+    @Test
+    void publicReadsGoToTheReplica() throws Exception {
+        double before = routedToReplica();
+        mockMvc.perform(get("/api/recipes/all")).andExpect(status().isOk());
+
+        assertTrue(routedToReplica() > before);
+    }
+
+    @Test
+    void readsOutsideRequestsStayOnThePrimary() {
+        double before = routedToReplica();
+        recipeRepository.findSummaries(Limit.of(1));
+
+        assertEquals(before, routedToReplica());
+    }
+
+    @Test
+    void sessionReadsWaitForTheReplicaToReplayItsWrite() throws Exception {
+        // what the session holds while its write is in flight
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(ReadRoutingInterceptor.SESSION_LSN, Long.MAX_VALUE);
+        double before = routedToReplica();
+        mockMvc.perform(get("/api/recipes/all").session(session)).andExpect(status().isOk());
+        assertEquals(before, routedToReplica());
+
+        // and once it has committed
+        session.setAttribute(ReadRoutingInterceptor.SESSION_LSN, replicaRoutingDataSource.currentPrimaryLsn());
+        replicaRoutingDataSource.checkReplicas();
+        mockMvc.perform(get("/api/recipes/all").session(session)).andExpect(status().isOk());
+        assertTrue(routedToReplica() > before);
+    }
+
+    private double routedToReplica() {
+        return meterRegistry.counter("recipedb.datasource.connections.routed", "pool", "replica-0").count();
+    }
+}
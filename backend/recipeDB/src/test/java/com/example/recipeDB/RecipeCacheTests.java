@@ -0,0 +1,229 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.config.CacheConfig;
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.repository.UserRepository;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.RecipeService;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// not @Transactional: evictions are deferred until a commit, which a rolled-back test never reaches
+@SpringBootTest
+@AutoConfigureMockMvc
+class RecipeCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private RecipeController recipeController;
+    @Autowired
+    private RecipeService recipeService;
+    @Autowired
+    private RecipeFilterIndex recipeFilterIndex;
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+    @Autowired
+    private RecipeRepository recipeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User voter;
+    private Recipe recipe;
+    private Cache detail;
+
+    @BeforeEach
+    void seed() {
+        owner = newUser("cache-owner");
+        voter = newUser("cache-voter");
+        recipe = new Recipe();
+        recipe.setTitle("Cached soup");
+        recipe.setTags(List.of(Tag.VEGAN));
+        recipe.setIngredients(List.of(Ingredient.CARROTS));
+        recipe.setOwner(owner);
+        recipeRepository.save(recipe);
+        detail = cacheManager.getCache(CacheConfig.RECIPE_DETAIL);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from recipe_upvotes where recipe_id = ?", recipe.getRecipeID());
+        if (recipeRepository.existsById(recipe.getRecipeID())) recipeService.delete(recipe.getRecipeID());
+        userRepository.deleteAllById(List.of(owner.getUserID(), voter.getUserID()));
+    }
+
+    @Test
+    void detailIsServedFromTheCacheUntilEdited() throws Exception {
+        getTitle("Cached soup");
+        assertNotNull(detail.get(recipe.getRecipeID()));
+
+        // behind the cache's back: still the cached title
+        jdbcTemplate.update("update recipes set title = 'Changed underneath' where recipeid = ?", recipe.getRecipeID());
+        getTitle("Cached soup");
+
+        recipeService.edit(recipe.getRecipeID(), r -> r.setTitle("Edited soup"));
+        assertNull(detail.get(recipe.getRecipeID()));
+        getTitle("Edited soup");
+    }
+
+    @Test
+    void commentAndUpvoteEvictTheDetail() throws Exception {
+        String path = "/api/recipes/r/byId/" + recipe.getRecipeID();
+        mockMvc.perform(get(path)).andExpect(jsonPath("$.commentCount").value(0));
+
+        recipeService.addComment(recipe.getRecipeID(), "Warming", voter);
+        assertNull(detail.get(recipe.getRecipeID()));
+        mockMvc.perform(get(path)).andExpect(jsonPath("$.commentCount").value(1))
+                .andExpect(jsonPath("$.upvotes").value(0));
+
+        recipeUpvoteService.toggle(recipe.getRecipeID(), voter.getUserID());
+        assertNull(detail.get(recipe.getRecipeID()));
+        mockMvc.perform(get(path)).andExpect(jsonPath("$.upvotes").value(1));
+    }
+
+    @Test
+    void evictionWaitsForTheCommit() throws Exception {
+        getTitle("Cached soup");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            recipeService.edit(recipe.getRecipeID(), r -> r.setTitle("Edited soup"));
+            // other requests still read the committed title, so the cached one stays valid until the commit
+            assertNotNull(detail.get(recipe.getRecipeID()));
+        });
+        assertNull(detail.get(recipe.getRecipeID()));
+        getTitle("Edited soup");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            recipeService.edit(recipe.getRecipeID(), r -> r.setTitle("Rolled back"));
+            status.setRollbackOnly();
+        });
+        assertNotNull(detail.get(recipe.getRecipeID()));
+        getTitle("Edited soup");
+    }
+
+    @Test
+    void indexesOnlySeeCommittedEdits() {
+        var keto = RecipeFilterIndex.Filter.of(null, List.of(Tag.KETO), null, null, null, null);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            recipeService.edit(recipe.getRecipeID(), r -> r.setTags(List.of(Tag.KETO)));
+            status.setRollbackOnly();
+        });
+        assertFalse(matches(keto));
+
+        recipeService.edit(recipe.getRecipeID(), r -> r.setTags(List.of(Tag.KETO)));
+        assertTrue(matches(keto));
+    }
+
+    @Test
+    void writeBetweenCommitAndEvictionIsNotHiddenByTheETag() throws Exception {
+        String path = "/api/recipes/r/byId/" + recipe.getRecipeID();
+        String etag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(detail.get(recipe.getRecipeID()));
+
+        // committed and revision bumped, eviction not run yet
+        jdbcTemplate.update("update recipes set title = 'Racing soup', revision = nextval('recipe_revision_seq') where recipeid = ?",
+                recipe.getRecipeID());
+
+        MvcResult changed = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Racing soup"))
+                .andReturn();
+        String newETag = changed.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newETag);
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, newETag)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void reCachedOldStateIsServedUnderItsOwnETag() throws Exception {
+        String path = "/api/recipes/r/byId/" + recipe.getRecipeID();
+        String etag = mockMvc.perform(get(path)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        RecipeDTO old = detail.get(recipe.getRecipeID(), RecipeDTO.class);
+
+        recipeService.edit(recipe.getRecipeID(), r -> r.setTitle("Edited soup"));
+        // a read that loaded before the edit committed puts its result back after the eviction
+        detail.put(recipe.getRecipeID(), old);
+
+        // served straight from the cache: the old body keeps the old ETag
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertEquals("Cached soup", recipeController.getRecipeById(recipe.getRecipeID(), response).title());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+
+        // through the interceptor: the stale entry is dropped and the edit served
+        String newETag = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Edited soup"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newETag);
+        assertEquals("Edited soup", detail.get(recipe.getRecipeID(), RecipeDTO.class).title());
+    }
+
+    @Test
+    void ownerLookupIsCachedUntilTheRecipeIsDeleted() {
+        Cache owners = cacheManager.getCache(CacheConfig.RECIPE_OWNER);
+        recipeRepository.findOwnerUsernameByRecipeID(recipe.getRecipeID());
+        assertNotNull(owners.get(recipe.getRecipeID()));
+
+        recipeService.delete(recipe.getRecipeID());
+        assertNull(owners.get(recipe.getRecipeID()));
+        assertNull(detail.get(recipe.getRecipeID()));
+        assertFalse(recipeRepository.findOwnerUsernameByRecipeID(recipe.getRecipeID()).isPresent());
+    }
+
+    private boolean matches(RecipeFilterIndex.Filter f) {
+        int[] ids = new int[1];
+        return recipeFilterIndex.filter(f, recipe.getRecipeID() - 1, ids) == 1 && ids[0] == recipe.getRecipeID();
+    }
+
+    private void getTitle(String expected) throws Exception {
+        mockMvc.perform(get("/api/recipes/r/byId/" + recipe.getRecipeID()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(expected));
+    }
+
+    private User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}password");
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.CommentDTO;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipePageDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.models.Comment;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@Transactional
+class RecipeCommentsTests {
+
+    private static final int COMMENTS = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    private Recipe recipe;
+
+    @BeforeEach
+    void seed() {
+        User owner = newUser(entityManager, "comments-owner");
+        recipe = newRecipe(entityManager, owner, "Much discussed recipe",
+                r -> r.setIngredients(List.of(Ingredient.SUGAR, Ingredient.FLOUR)));
+
+        // pairs of comments share a timestamp, so the id has to break ties
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < COMMENTS; i++) {
+            Comment comment = new Comment();
+            comment.setText("comment " + i);
+            comment.setCreatedAt(base.plusSeconds(i / 2));
+            comment.setRecipe(recipe);
+            comment.setAuthor(newUser(entityManager, "commenter-" + i));
+            entityManager.persist(comment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesWalkEveryCommentNewestFirst() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            RecipePageDTO<CommentDTO> page = recipeController.getComments(recipe.getRecipeID(), cursor, 7);
+            page.items().forEach(c -> seen.add(c.content()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = COMMENTS - 1; i >= 0; i--) expected.add("comment " + i);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void detailCarriesCountAndFirstPage() {
+        RecipeDTO detail = recipeController.getRecipeById(recipe.getRecipeID(), new MockHttpServletResponse());
+
+        assertEquals(COMMENTS, detail.commentCount());
+        assertEquals(20, detail.comments().size());
+        assertEquals("comment 49", detail.comments().get(0).content());
+        assertEquals("commenter-49", detail.comments().get(0).commenterUsername());
+
+        RecipePageDTO<CommentDTO> rest = recipeController.getComments(recipe.getRecipeID(), detail.commentsNextCursor(), 100);
+        assertEquals(COMMENTS - 20, rest.items().size());
+        assertNull(rest.nextCursor());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newComment;
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RecipeDetailQueryCountTests {
+
+    // recipe + owner + tags, ingredients, comment count, first comment page with authors
+    private static final int DETAIL_STATEMENTS = 4;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        owner = newUser(entityManager, "detail-owner");
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithComments() {
+        Recipe quiet = newRecipeWithComments("Quiet recipe", 0);
+        Recipe busy = newRecipeWithComments("Busy recipe", 50);
+        entityManager.flush();
+        entityManager.clear();
+
+        long quietStatements = statementsFor(quiet);
+        long busyStatements = statementsFor(busy);
+
+        assertEquals(DETAIL_STATEMENTS, quietStatements);
+        assertEquals(DETAIL_STATEMENTS, busyStatements);
+    }
+
+    private long statementsFor(Recipe recipe) {
+        entityManager.clear();
+        statistics.clear();
+        RecipeDTO detail = recipeController.getRecipeById(recipe.getRecipeID(), new MockHttpServletResponse());
+        long statements = statistics.getPrepareStatementCount();
+
+        // touch everything the response carries, so lazy loads would be counted
+        assertEquals(recipe.getTitle(), detail.title());
+        assertEquals("detail-owner", detail.ownerUsername());
+        assertEquals(List.of(Tag.DESSERT), detail.tags());
+        assertEquals(2, detail.ingredients().size());
+        detail.comments().forEach(c -> assertEquals(c.content().replace("comment", "author"), c.commenterUsername()));
+        return statements;
+    }
+
+    private Recipe newRecipeWithComments(String title, int comments) {
+        Recipe recipe = newRecipe(entityManager, owner, title,
+                r -> r.setIngredients(List.of(Ingredient.SUGAR, Ingredient.BUTTER)));
+        for (int i = 0; i < comments; i++) {
+            newComment(entityManager, recipe, newUser(entityManager, title + " author " + i), title + " comment " + i);
+        }
+        return recipe;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.dto.RecipeExportDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Transactional
+class RecipeExportTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeExportService recipeExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Recipe> recipes = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        User owner = new User();
+        owner.setUsername("export-owner");
+        owner.setEmail("export-owner@example.com");
+        owner.setPassword("{noop}password");
+        entityManager.persist(owner);
+
+        for (int i = 0; i < 3; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Export recipe " + i);
+            recipe.setSteps("line one\nline \"two\"");
+            recipe.setTags(i == 0 ? List.of() : List.of(Tag.VEGAN, Tag.KETO));
+            recipe.setIngredients(List.of(Ingredient.SPINACH));
+            recipe.setOwner(owner);
+            entityManager.persist(recipe);
+            recipes.add(recipe);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void exportsOneLinePerRecipeAndResumesAfterAnId() throws Exception {
+        int firstId = recipes.get(0).getRecipeID();
+
+        List<RecipeExportDTO> all = seeded(export(firstId - 1));
+        List<RecipeExportDTO> resumed = seeded(export(firstId));
+
+        assertEquals(recipes.stream().map(Recipe::getRecipeID).toList(), all.stream().map(RecipeExportDTO::recipeID).toList());
+        assertEquals(List.of(), all.get(0).tags());
+        assertEquals(Set.of(Tag.VEGAN, Tag.KETO), Set.copyOf(all.get(1).tags()));
+        assertEquals("line one\nline \"two\"", all.get(2).steps());
+        assertEquals("export-owner", all.get(2).ownerUsername());
+        assertEquals(all.subList(1, 3), resumed);
+    }
+
+    // the database may hold other recipes above the seeded ids
+    private static List<RecipeExportDTO> seeded(List<RecipeExportDTO> rows) {
+        return rows.stream().filter(r -> "export-owner".equals(r.ownerUsername())).toList();
+    }
+
+    private List<RecipeExportDTO> export(int after) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = recipeExportService.export(after, out);
+        List<RecipeExportDTO> rows = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) rows.add(objectMapper.readValue(line, RecipeExportDTO.class));
+        }
+        assertEquals(written, rows.size());
+        return rows;
+    }
+}
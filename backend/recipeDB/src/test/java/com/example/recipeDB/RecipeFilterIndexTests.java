@@ -0,0 +1,222 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.dto.PantryMatchDTO;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.helper.EnumMasks;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecipeFilterIndexTests {
+
+    private static final RecipeFilterIndex.Filter NONE = new RecipeFilterIndex.Filter(0, 0, 0, 0, 0, 0);
+
+    @Test
+    void filterMatchesBruteForce() {
+        Random random = new Random(42);
+        RecipeFilterIndex index = new RecipeFilterIndex(null, null);
+        long[] tags = new long[500];
+        long[] ingredients = new long[500];
+        for (int id = 1; id < tags.length; id++) {
+            // every tenth id is a gap, every seventh recipe has no tags at all
+            if (id % 10 == 0) continue;
+            tags[id] = id % 7 == 0 ? 0 : random.nextLong() & ((1L << Tag.values().length) - 1) & random.nextLong();
+            ingredients[id] = random.nextLong() & ((1L << Ingredient.values().length) - 1) & random.nextLong();
+            index.put(id, EnumMasks.tags(tags[id]), EnumMasks.ingredients(ingredients[id]));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            var f = new RecipeFilterIndex.Filter(
+                    sparse(random, Tag.values().length), sparse(random, Tag.values().length), sparse(random, Tag.values().length),
+                    sparse(random, Ingredient.values().length), sparse(random, Ingredient.values().length),
+                    sparse(random, Ingredient.values().length));
+            assertArrayEquals(bruteForce(f, tags, ingredients), all(index, f), f.toString());
+        }
+    }
+
+    @Test
+    void recipeWithoutTagsIsStillARecipe() {
+        RecipeFilterIndex index = new RecipeFilterIndex(null, null);
+        index.put(3, List.of(), List.of());
+        index.put(5, List.of(Tag.VEGAN), List.of(Ingredient.RICE));
+
+        assertArrayEquals(new int[]{3, 5}, all(index, NONE));
+        assertArrayEquals(new int[]{3}, all(index, new RecipeFilterIndex.Filter(0, 0, EnumMasks.tagMask(List.of(Tag.VEGAN)), 0, 0, 0)));
+    }
+
+    @Test
+    void pagesContinueAfterTheCursor() {
+        RecipeFilterIndex index = new RecipeFilterIndex(null, null);
+        for (int id = 1; id <= 10; id++) index.put(id, List.of(Tag.VEGAN), List.of(Ingredient.RICE));
+        index.remove(4);
+
+        int[] page = new int[3];
+        assertEquals(3, index.filter(NONE, 0, page));
+        assertArrayEquals(new int[]{1, 2, 3}, page);
+        assertEquals(3, index.filter(NONE, page[2], page));
+        assertArrayEquals(new int[]{5, 6, 7}, page);
+        assertEquals(3, index.filter(NONE, page[2], page));
+        assertArrayEquals(new int[]{8, 9, 10}, page);
+        assertEquals(0, index.filter(NONE, page[2], page));
+    }
+
+    @Test
+    void writesRacingWithARebuildWin() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        RecipeFilterIndex index = new RecipeFilterIndex(jdbcTemplate, transactionTemplate);
+
+        // the database as the rebuild reads it: recipes 1 and 2, both VEGAN
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(2);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        int[] query = {0};
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            switch (query[0]++) {
+                case 0 -> {
+                    handler.processRow(row(1, null));
+                    handler.processRow(row(2, null));
+                    // written while the scan is running, after it read their rows
+                    index.put(1, List.of(Tag.KETO), List.of(Ingredient.BEEF));
+                    index.remove(2);
+                    index.put(3, List.of(Tag.VEGAN), List.of(Ingredient.RICE));
+                }
+                case 1 -> {
+                    handler.processRow(row(1, Tag.VEGAN.name()));
+                    handler.processRow(row(2, Tag.VEGAN.name()));
+                }
+                default -> { }
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        var vegan = new RecipeFilterIndex.Filter(0, EnumMasks.tagMask(List.of(Tag.VEGAN)), 0, 0, 0, 0);
+        var keto = new RecipeFilterIndex.Filter(0, EnumMasks.tagMask(List.of(Tag.KETO)), 0, 0, 0, 0);
+        assertArrayEquals(new int[]{1, 3}, all(index, NONE));
+        assertArrayEquals(new int[]{3}, all(index, vegan));
+        assertArrayEquals(new int[]{1}, all(index, keto));
+    }
+
+    @Test
+    void pantryRanksByMissingThenUsedThenId() {
+        RecipeFilterIndex index = new RecipeFilterIndex(null, null);
+        long pantry = EnumMasks.ingredientMask(List.of(Ingredient.RICE, Ingredient.ONIONS, Ingredient.GARLIC));
+        index.put(1, List.of(), List.of(Ingredient.RICE, Ingredient.BEEF, Ingredient.CHEESE));            // 2 missing
+        index.put(2, List.of(), List.of(Ingredient.RICE, Ingredient.BEEF));                               // 1 missing, 1 used
+        index.put(3, List.of(), List.of(Ingredient.RICE, Ingredient.ONIONS));                             // 0 missing, 2 used
+        index.put(4, List.of(), List.of(Ingredient.RICE, Ingredient.ONIONS, Ingredient.GARLIC, Ingredient.BEEF)); // 1 missing, 3 used
+        index.put(5, List.of(), List.of(Ingredient.RICE, Ingredient.CHEESE));                             // 1 missing, 1 used
+        index.put(6, List.of(), List.of(Ingredient.RICE));                                                // 0 missing, 1 used
+        index.put(7, List.of(Tag.VEGAN), List.of());                                                      // no ingredients
+
+        assertArrayEquals(new int[]{3, 6, 4, 2, 5, 1}, pantry(index, pantry, NONE, Integer.MAX_VALUE, 10));
+        assertArrayEquals(new int[]{3, 6, 4}, pantry(index, pantry, NONE, Integer.MAX_VALUE, 3));
+        assertArrayEquals(new int[]{3, 6, 4, 2, 5}, pantry(index, pantry, NONE, 1, 10));
+        assertArrayEquals(new int[]{3, 6}, pantry(index, pantry, NONE, 0, 10));
+    }
+
+    @Test
+    void pantryHeapMatchesSortingEverything() {
+        Random random = new Random(7);
+        RecipeFilterIndex index = new RecipeFilterIndex(null, null);
+        long[] ingredients = new long[2000];
+        for (int id = 1; id < ingredients.length; id++) {
+            ingredients[id] = random.nextLong() & random.nextLong() & ((1L << Ingredient.values().length) - 1);
+            index.put(id, List.of(), EnumMasks.ingredients(ingredients[id]));
+        }
+        for (int i = 0; i < 20; i++) {
+            long pantry = random.nextLong() & ((1L << Ingredient.values().length) - 1);
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 1; id < ingredients.length; id++) {
+                if (ingredients[id] != 0 && Long.bitCount(ingredients[id] & ~pantry) <= 5) expected.add(id);
+            }
+            expected.sort((a, b) -> {
+                int c = Integer.compare(Long.bitCount(ingredients[a] & ~pantry), Long.bitCount(ingredients[b] & ~pantry));
+                if (c == 0) c = Integer.compare(Long.bitCount(ingredients[b] & pantry), Long.bitCount(ingredients[a] & pantry));
+                return c == 0 ? Integer.compare(a, b) : c;
+            });
+            int[] top = expected.stream().limit(25).mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(top, pantry(index, pantry, NONE, 5, 25));
+        }
+    }
+
+    @Test
+    void missingIngredientsAreInDeclarationOrder() {
+        var recipe = new RecipeSummaryDTO(1, "Stir fry", null, null, null, null, null, 0, null, List.of(),
+                List.of(Ingredient.GARLIC, Ingredient.RICE, Ingredient.SUGAR, Ingredient.ONIONS), "owner");
+
+        PantryMatchDTO match = PantryMatchDTO.of(recipe, EnumMasks.ingredientMask(List.of(Ingredient.RICE)));
+
+        assertEquals(3, match.missingCount());
+        assertEquals(List.of(Ingredient.SUGAR, Ingredient.ONIONS, Ingredient.GARLIC), match.missingIngredients());
+    }
+
+    private static int[] pantry(RecipeFilterIndex index, long pantry, RecipeFilterIndex.Filter f, int maxMissing, int k) {
+        int[] out = new int[k];
+        return Arrays.copyOf(out, index.pantryMatch(pantry, f, maxMissing, out));
+    }
+
+    private static ResultSet row(int id, String value) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(id);
+        when(rs.getString(2)).thenReturn(value);
+        return rs;
+    }
+
+    // 0 (no constraint) half of the time, otherwise one or two bits
+    private static long sparse(Random random, int bits) {
+        if (random.nextBoolean()) return 0;
+        long mask = 1L << random.nextInt(bits);
+        if (random.nextBoolean()) mask |= 1L << random.nextInt(bits);
+        return mask;
+    }
+
+    private static int[] all(RecipeFilterIndex index, RecipeFilterIndex.Filter f) {
+        int[] out = new int[1000];
+        return Arrays.copyOf(out, index.filter(f, 0, out));
+    }
+
+    private static int[] bruteForce(RecipeFilterIndex.Filter f, long[] tags, long[] ingredients) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id < tags.length; id++) {
+            if (id % 10 == 0) continue;
+            long t = tags[id];
+            long i = ingredients[id];
+            boolean anyTags = f.anyTags() == 0 || (t & f.anyTags()) != 0;
+            boolean allTags = (t & f.allTags()) == f.allTags();
+            boolean noneTags = (t & f.noneTags()) == 0;
+            boolean anyIngredients = f.anyIngredients() == 0 || (i & f.anyIngredients()) != 0;
+            boolean allIngredients = (i & f.allIngredients()) == f.allIngredients();
+            boolean noneIngredients = (i & f.noneIngredients()) == 0;
+            if (anyTags && allTags && noneTags && anyIngredients && allIngredients && noneIngredients) ids.add(id);
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.dto.ImportResultDTO;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.RecipeImportService;
+import com.example.recipeDB.service.SimilarRecipeIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class RecipeImportTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeImportService recipeImportService;
+
+    @Autowired
+    private RecipeFilterIndex recipeFilterIndex;
+
+    @Autowired
+    private SimilarRecipeIndex similarRecipeIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+
+    @BeforeEach
+    void seed() {
+        owner = new User();
+        owner.setUsername("import-owner");
+        owner.setEmail("import-owner@example.com");
+        owner.setPassword("{noop}password");
+        entityManager.persist(owner);
+        entityManager.flush();
+    }
+
+    // the import also puts its rows into the in-memory indexes, which the rollback doesn't undo
+    @AfterEach
+    void dropFromIndexes() {
+        for (int id : jdbcTemplate.queryForList("select recipeid from recipes where user_id = ?", Integer.class, owner.getUserID())) {
+            recipeFilterIndex.remove(id);
+            similarRecipeIndex.remove(id);
+        }
+    }
+
+    @Test
+    void ndjsonRowsAreImportedAndInvalidRowsReported() throws Exception {
+        String ndjson = """
+                {"title":"Imported pancakes","prepTime":5,"cookTime":10,"difficulty":2,"tags":["VEGETARIAN"],"ingredients":["FLOUR","EGGS","MILK"]}
+                {"title":"Bad tag","tags":["NOT_A_TAG"]}
+
+                not json
+                {"title":"Imported \\"quoted\\", steak","ingredients":["beef","salt"]}
+                """;
+
+        ImportResultDTO result = importText(ndjson, RecipeImportService.Format.NDJSON);
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(List.of(2L, 3L), result.errors().stream().map(ImportResultDTO.RowError::row).toList());
+        assertEquals(List.of("Imported \"quoted\", steak", "Imported pancakes"), importedTitles());
+        assertEquals(6, childRows());
+    }
+
+    @Test
+    void csvRowsAreImported() throws Exception {
+        String csv = """
+                title,description,prepTime,cookTime,servings,difficulty,steps,imageUrl,tags,ingredients
+                "Salad, green",,5,0,2,1,"1. chop
+                2. toss",,VEGAN;GLUTEN_FREE,LETTUCE;CUCUMBERS
+                Soup,warm,ten,30,4,2,,,,ONIONS
+                """;
+
+        ImportResultDTO result = importText(csv, RecipeImportService.Format.CSV);
+
+        assertEquals(1, result.imported());
+        assertEquals(1, result.rejected());
+        assertTrue(result.errors().get(0).message().contains("prepTime"));
+        assertEquals(List.of("Salad, green"), importedTitles());
+        assertEquals(4, childRows());
+    }
+
+    private ImportResultDTO importText(String text, RecipeImportService.Format format) throws Exception {
+        return recipeImportService.importRecipes(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), format, owner.getUserID());
+    }
+
+    private List<String> importedTitles() {
+        return jdbcTemplate.queryForList(
+                "select title from recipes where user_id = ? order by title", String.class, owner.getUserID());
+    }
+
+    private int childRows() {
+        Integer n = jdbcTemplate.queryForObject("""
+                select (select count(*) from recipe_tags t join recipes r on r.recipeid = t.recipe_recipeid where r.user_id = ?)
+                     + (select count(*) from recipe_ingredients i join recipes r on r.recipeid = i.recipe_recipeid where r.user_id = ?)
+                """, Integer.class, owner.getUserID(), owner.getUserID());
+        return n == null ? 0 : n;
+    }
+}
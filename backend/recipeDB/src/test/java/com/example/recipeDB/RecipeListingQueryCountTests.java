@@ -0,0 +1,138 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeDTO;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.RecipeUpvote;
+import com.example.recipeDB.models.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RecipeListingQueryCountTests {
+
+    private static final int RECIPES = 3_000;
+    private static final int VOTERS = 5;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        owner = newUser(entityManager, "listing-owner");
+        List<User> voters = new ArrayList<>();
+        for (int i = 0; i < VOTERS; i++) {
+            voters.add(newUser(entityManager, "listing-voter-" + i));
+        }
+
+        for (int i = 0; i < RECIPES; i++) {
+            int seq = i;
+            Recipe recipe = newRecipe(entityManager, owner, "Listing recipe " + i, r -> {
+                r.setDescription("seeded by RecipeListingQueryCountTests");
+                r.setPrepTime(10);
+                r.setCookTime(20);
+                r.setServings(2);
+                r.setDifficulty(1 + seq % 5);
+                r.setSteps("1. cook");
+                r.setImageUrl("https://example.com/" + seq + ".jpg");
+                r.setTags(List.of(Tag.KETO));
+                r.setIngredients(List.of(Ingredient.EGGS, Ingredient.BUTTER));
+                // recipe i gets i % (VOTERS + 1) upvotes
+                r.setUpvotes(seq % (VOTERS + 1));
+            });
+
+            for (int v = 0; v < recipe.getUpvotes(); v++) {
+                RecipeUpvote upvote = new RecipeUpvote();
+                upvote.setRecipe(recipe);
+                upvote.setUser(voters.get(v));
+                entityManager.persist(upvote);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void listingByUsernameIssuesBoundedStatements() {
+        List<RecipeDTO> recipes = recipeController.getRecipesByUsername(owner.getUsername());
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(RECIPES, recipes.size());
+        recipes.forEach(r -> {
+            int seq = Integer.parseInt(r.title().substring("Listing recipe ".length()));
+            assertEquals(seq % (VOTERS + 1), r.upvotes());
+        });
+        assertBounded(statements);
+    }
+
+    @Test
+    void listingByTagIssuesBoundedStatements() {
+        List<RecipeDTO> recipes = recipeController.getByTags(List.of(Tag.KETO));
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(recipes.size() >= RECIPES);
+        assertBounded(statements);
+    }
+
+    @Test
+    void summaryViewIsSmallerAndTwoStatements() throws Exception {
+        List<RecipeDTO> full = recipeController.getRecipesByUsername(owner.getUsername());
+        long fullStatements = statistics.getPrepareStatementCount();
+        int fullBytes = objectMapper.writeValueAsBytes(full).length;
+
+        entityManager.clear();
+        statistics.clear();
+
+        List<RecipeSummaryDTO> summaries = recipeController.getRecipeSummariesByUsername(owner.getUsername());
+        long summaryStatements = statistics.getPrepareStatementCount();
+        int summaryBytes = objectMapper.writeValueAsBytes(summaries).length;
+
+        assertEquals(RECIPES, summaries.size());
+        assertEquals(2, summaryStatements);
+        assertTrue(summaryStatements <= fullStatements,
+                "summary view took " + summaryStatements + " statements, full view " + fullStatements);
+        assertTrue(summaryBytes < fullBytes);
+        assertTrue(summaries.stream().allMatch(r -> r.tags().equals(List.of(Tag.KETO)) && r.ingredients().size() == 2));
+    }
+
+    // one select for the recipes, then batch loads of the
+    // lazy owner/tags/ingredients/comments, none of which scale one-per-recipe
+    private static void assertBounded(long statements) {
+        assertTrue(statements <= 32,
+                "expected a bounded number of statements for " + RECIPES + " recipes but got " + statements);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class RecipeSearchTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Recipe inTitle;
+    private Recipe inSteps;
+
+    @BeforeEach
+    void seed() {
+        User owner = new User();
+        owner.setUsername("search-owner");
+        owner.setEmail("search-owner@example.com");
+        owner.setPassword("{noop}password");
+        entityManager.persist(owner);
+
+        inTitle = newRecipe(owner, "Zzyzx Saffron Risotto", "creamy rice", "stir slowly", List.of(Tag.VEGETARIAN));
+        inSteps = newRecipe(owner, "Weeknight Rice", "simple", "finish with a pinch of zzyzx saffron", List.of(Tag.VEGAN));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void titleMatchesOutrankStepMatchesAndPrefixesMatch() {
+        List<RecipeSummaryDTO> results = recipeController.search("zzyzx saff", null, 0, 10).items();
+
+        assertEquals(List.of(inTitle.getRecipeID(), inSteps.getRecipeID()),
+                results.stream().map(RecipeSummaryDTO::recipeID).toList());
+    }
+
+    @Test
+    void tagFilterNarrowsResults() {
+        List<RecipeSummaryDTO> results = recipeController.search("zzyzx", List.of(Tag.VEGAN), 0, 10).items();
+
+        assertEquals(List.of(inSteps.getRecipeID()), results.stream().map(RecipeSummaryDTO::recipeID).toList());
+    }
+
+    @Test
+    void queryPlanUsesGinIndex() {
+        // the seeded table is tiny, so take sequential scans off the table to see which index the planner picks
+        jdbcTemplate.execute("set local enable_seqscan = off");
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "explain select recipeid from recipes where search_vector @@ to_tsquery('english', 'zzyzx:*')",
+                String.class));
+
+        assertTrue(plan.contains("idx_recipes_search_vector"), plan);
+    }
+
+    private Recipe newRecipe(User owner, String title, String description, String steps, List<Tag> tags) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setDescription(description);
+        recipe.setSteps(steps);
+        recipe.setTags(tags);
+        recipe.setIngredients(List.of(Ingredient.RICE));
+        recipe.setOwner(owner);
+        entityManager.persist(recipe);
+        return recipe;
+    }
+}
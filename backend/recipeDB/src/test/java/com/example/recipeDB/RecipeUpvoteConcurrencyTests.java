@@ -0,0 +1,125 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.repository.UserRepository;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import com.example.recipeDB.service.UpvoteReconciliationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class RecipeUpvoteConcurrencyTests {
+
+    private static final int USERS = 1_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+    @Autowired
+    private UpvoteReconciliationService upvoteReconciliationService;
+    @Autowired
+    private RecipeRepository recipeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+    private Recipe recipe;
+
+    @BeforeEach
+    void seed() {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("upvote-concurrency-" + i);
+            user.setEmail("upvote-concurrency-" + i + "@example.com");
+            user.setPassword("{noop}password");
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        recipe = new Recipe();
+        recipe.setTitle("Viral recipe");
+        recipe.setTags(List.of(Tag.DESSERT));
+        recipe.setIngredients(List.of(Ingredient.CHOCOLATE));
+        recipe.setOwner(users.get(0));
+        recipeRepository.save(recipe);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from recipe_upvotes where recipe_id = ?", recipe.getRecipeID());
+        recipeRepository.deleteById(recipe.getRecipeID());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void parallelTogglesKeepCounterExact() throws Exception {
+        // every user upvotes once, concurrently
+        runToggles(users.stream().map(User::getUserID).toList());
+        assertEquals(USERS, storedCount());
+        assertEquals(USERS, rowCount());
+
+        // and takes it back, concurrently
+        runToggles(users.stream().map(User::getUserID).toList());
+        assertEquals(0, storedCount());
+        assertEquals(0, rowCount());
+    }
+
+    @Test
+    void chaoticTogglesNeverDriftFromRows() throws Exception {
+        // several thousand toggles with the same user racing itself; the final state per user
+        // is not deterministic, but the counter must always equal the number of rows
+        Random random = new Random(42);
+        List<Integer> toggles = new ArrayList<>();
+        for (int i = 0; i < USERS * 4; i++) {
+            toggles.add(users.get(random.nextInt(USERS)).getUserID());
+        }
+        runToggles(toggles);
+
+        assertEquals(rowCount(), storedCount());
+        assertEquals(0, upvoteReconciliationService.reconcile());
+    }
+
+    private void runToggles(List<Integer> userIDs) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int userID : userIDs) {
+                futures.add(pool.submit(() -> recipeUpvoteService.toggle(recipe.getRecipeID(), userID)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int storedCount() {
+        return recipeRepository.findUpvotesByRecipeID(recipe.getRecipeID());
+    }
+
+    private int rowCount() {
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from recipe_upvotes where recipe_id = ?", Integer.class, recipe.getRecipeID());
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.service.RecipeFilterIndex;
+import com.example.recipeDB.service.SimilarRecipeIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SimilarRecipeIndexTests {
+
+    private final RecipeFilterIndex filterIndex = new RecipeFilterIndex(null, null);
+    private final SimilarRecipeIndex index = new SimilarRecipeIndex(filterIndex);
+
+    @BeforeEach
+    void build() {
+        filterIndex.put(1, List.of(Tag.VEGAN), List.of(Ingredient.RICE, Ingredient.TOMATOES, Ingredient.ONIONS));
+        filterIndex.put(2, List.of(Tag.VEGAN), List.of(Ingredient.RICE, Ingredient.TOMATOES, Ingredient.ONIONS));
+        filterIndex.put(3, List.of(Tag.VEGAN), List.of(Ingredient.RICE, Ingredient.TOMATOES, Ingredient.GARLIC));
+        filterIndex.put(4, List.of(Tag.DESSERT), List.of(Ingredient.SUGAR, Ingredient.FLOUR));
+        index.rebuild();
+    }
+
+    @AfterEach
+    void shutdown() {
+        index.shutdown();
+    }
+
+    @Test
+    void identicalRecipeComesFirstAndUnrelatedOnesNever() {
+        int[] ids = new int[SimilarRecipeIndex.NEIGHBOURS];
+        double[] similarity = new double[ids.length];
+        int n = index.similar(1, ids, similarity);
+
+        assertEquals(2, ids[0]);
+        assertEquals(1.0, similarity[0]);
+        assertFalse(Arrays.stream(ids, 0, n).anyMatch(id -> id == 1 || id == 4));
+    }
+
+    @Test
+    void putAfterBuildIsFoundBothWays() {
+        index.put(5, List.of(Tag.VEGAN), List.of(Ingredient.RICE, Ingredient.TOMATOES, Ingredient.GARLIC));
+
+        int[] ids = new int[1];
+        double[] similarity = new double[1];
+        assertEquals(1, index.similar(3, ids, similarity));
+        assertEquals(5, ids[0]);
+        assertEquals(1, index.similar(5, ids, similarity));
+        assertEquals(3, ids[0]);
+    }
+
+    @Test
+    void removedRecipeIsNotReturned() {
+        index.remove(2);
+
+        int[] ids = new int[SimilarRecipeIndex.NEIGHBOURS];
+        int n = index.similar(1, ids, new double[ids.length]);
+        assertFalse(Arrays.stream(ids, 0, n).anyMatch(id -> id == 2));
+        assertEquals(0, index.similar(2, ids, new double[ids.length]));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Comment;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// entities for the @Transactional tests, persisted but not flushed
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    static User newUser(EntityManager entityManager, String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username.replace(' ', '-') + "@example.com");
+        user.setPassword("{noop}password");
+        entityManager.persist(user);
+        return user;
+    }
+
+    static Recipe newRecipe(EntityManager entityManager, User owner, String title) {
+        return newRecipe(entityManager, owner, title, recipe -> { });
+    }
+
+    // a DESSERT with FLOUR unless details says otherwise, details run before the insert
+    static Recipe newRecipe(EntityManager entityManager, User owner, String title, Consumer<Recipe> details) {
+        Recipe recipe = new Recipe();
+        recipe.setTitle(title);
+        recipe.setTags(List.of(Tag.DESSERT));
+        recipe.setIngredients(List.of(Ingredient.FLOUR));
+        recipe.setOwner(owner);
+        details.accept(recipe);
+        entityManager.persist(recipe);
+        return recipe;
+    }
+
+    static Comment newComment(EntityManager entityManager, Recipe recipe, User author, String text) {
+        Comment comment = new Comment();
+        comment.setText(text);
+        comment.setRecipe(recipe);
+        comment.setAuthor(author);
+        entityManager.persist(comment);
+        return comment;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import com.example.recipeDB.service.TrendingService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class TrendingTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> voters = new ArrayList<>();
+    private Recipe fresh;
+    private Recipe stale;
+
+    @BeforeEach
+    void seed() {
+        // other tests' activity must not take the top spots
+        jdbcTemplate.update("delete from recipe_trending");
+        User owner = newUser(entityManager, "trending-owner");
+        for (int i = 0; i < 3; i++) voters.add(newUser(entityManager, "trending-voter-" + i));
+        fresh = quickRecipe(owner, "Fresh trend");
+        stale = quickRecipe(owner, "Stale trend");
+        entityManager.flush();
+    }
+
+    @Test
+    void recentActivityOutranksMoreButOlderActivity() {
+        Instant now = Instant.now();
+        // three upvotes two days ago (two half-lives) weigh 0.75 today, one upvote now weighs 1
+        for (int i = 0; i < 3; i++) trendingService.recordUpvote(stale.getRecipeID(), now.minus(Duration.ofDays(2)));
+        trendingService.recordUpvote(fresh.getRecipeID(), now);
+
+        assertEquals(List.of(fresh.getRecipeID(), stale.getRecipeID()), trendingIds());
+    }
+
+    @Test
+    void toggleMovesTheScoreBothWays() {
+        recipeUpvoteService.toggle(fresh.getRecipeID(), voters.get(0).getUserID());
+        recipeUpvoteService.toggle(stale.getRecipeID(), voters.get(0).getUserID());
+        recipeUpvoteService.toggle(stale.getRecipeID(), voters.get(1).getUserID());
+        assertEquals(List.of(stale.getRecipeID(), fresh.getRecipeID()), trendingIds());
+
+        // taking both back leaves nothing but rounding
+        recipeUpvoteService.toggle(stale.getRecipeID(), voters.get(0).getUserID());
+        recipeUpvoteService.toggle(stale.getRecipeID(), voters.get(1).getUserID());
+        assertTrue(Math.abs(score(stale)) < 1e-9);
+        assertEquals(fresh.getRecipeID(), trendingIds().get(0));
+    }
+
+    @Test
+    void rebaseKeepsTheOrderAndPrunesDecayedScores() {
+        Instant now = Instant.now();
+        trendingService.recordUpvote(fresh.getRecipeID(), now);
+        trendingService.recordComment(stale.getRecipeID(), now.minus(Duration.ofDays(2)));
+        // far enough back to decay below the pruning threshold
+        trendingService.recordUpvote(voterRecipe(), now.minus(Duration.ofDays(30)));
+        List<Integer> before = trendingIds();
+
+        trendingService.rebase();
+
+        assertEquals(before.subList(0, 2), trendingIds());
+        assertEquals(2, trendingIds().size());
+    }
+
+    private int voterRecipe() {
+        Recipe r = quickRecipe(voters.get(2), "Forgotten trend");
+        entityManager.flush();
+        return r.getRecipeID();
+    }
+
+    private List<Integer> trendingIds() {
+        return recipeController.trending(10).stream().map(RecipeSummaryDTO::recipeID).toList();
+    }
+
+    private double score(Recipe recipe) {
+        return jdbcTemplate.queryForObject("select score from recipe_trending where recipe_id = ?",
+                Double.class, recipe.getRecipeID());
+    }
+
+    private Recipe quickRecipe(User owner, String title) {
+        return newRecipe(entityManager, owner, title, r -> {
+            r.setTags(List.of(Tag.QUICK_EASY));
+            r.setIngredients(List.of(Ingredient.EGGS));
+        });
+    }
+}
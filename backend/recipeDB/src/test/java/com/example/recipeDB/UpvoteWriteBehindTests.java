@@ -0,0 +1,178 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.enums.Ingredient;
+import com.example.recipeDB.enums.Tag;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.repository.RecipeRepository;
+import com.example.recipeDB.repository.UserRepository;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import com.example.recipeDB.service.UpvoteReconciliationService;
+import com.example.recipeDB.service.UpvoteWriteBehindBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "recipes.upvotes.write-behind.enabled=true",
+        // flushed by hand
+        "recipes.upvotes.write-behind.flush-interval=PT1H"
+})
+class UpvoteWriteBehindTests {
+
+    private static final int USERS = 200;
+
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+    @Autowired
+    private UpvoteWriteBehindBuffer buffer;
+    @Autowired
+    private UpvoteReconciliationService upvoteReconciliationService;
+    @Autowired
+    private RecipeRepository recipeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+    private Recipe recipe;
+
+    @BeforeEach
+    void seed() {
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("write-behind-" + i);
+            user.setEmail("write-behind-" + i + "@example.com");
+            user.setPassword("{noop}password");
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        recipe = new Recipe();
+        recipe.setTitle("Buffered recipe");
+        recipe.setTags(List.of(Tag.DESSERT));
+        recipe.setIngredients(List.of(Ingredient.HONEY));
+        recipe.setOwner(users.get(0));
+        recipeRepository.save(recipe);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        buffer.flush();
+        jdbcTemplate.update("delete from recipe_upvotes where recipe_id = ?", recipe.getRecipeID());
+        recipeRepository.deleteById(recipe.getRecipeID());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    void doubleTapWritesNothing() {
+        int user = users.get(1).getUserID();
+        var first = recipeUpvoteService.toggle(recipe.getRecipeID(), user);
+        assertTrue(first.upvoted());
+        assertEquals(1, first.upvotes());
+        var second = recipeUpvoteService.toggle(recipe.getRecipeID(), user);
+        assertFalse(second.upvoted());
+        assertEquals(0, second.upvotes());
+
+        assertEquals(0, buffer.flush());
+        assertEquals(0, rowCount());
+    }
+
+    @Test
+    void toggleAfterFlushSeesTheStoredState() {
+        int user = users.get(1).getUserID();
+        recipeUpvoteService.toggle(recipe.getRecipeID(), user);
+        assertEquals(0, rowCount());
+        assertEquals(1, buffer.flush());
+        assertEquals(1, rowCount());
+        assertEquals(1, storedCount());
+
+        var undo = recipeUpvoteService.toggle(recipe.getRecipeID(), user);
+        assertFalse(undo.upvoted());
+        assertEquals(0, undo.upvotes());
+        assertEquals(1, buffer.flush());
+        assertEquals(0, rowCount());
+        assertEquals(0, storedCount());
+    }
+
+    @Test
+    void concurrentTogglesWithFlushesKeepCounterExact() throws Exception {
+        Random random = new Random(7);
+        List<Integer> toggles = new ArrayList<>();
+        for (int i = 0; i < USERS * 10; i++) {
+            toggles.add(users.get(random.nextInt(USERS)).getUserID());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < toggles.size(); i++) {
+                int userID = toggles.get(i);
+                futures.add(pool.submit(() -> recipeUpvoteService.toggle(recipe.getRecipeID(), userID)));
+                // flushes race with the toggles
+                if (i % 500 == 0) futures.add(pool.submit(buffer::flush));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        buffer.flush();
+
+        // every user toggled an even or odd number of times, the rows must say which
+        long odd = toggles.stream().collect(Collectors.groupingBy(u -> u, Collectors.counting()))
+                .values().stream().filter(n -> n % 2 == 1).count();
+        assertEquals(odd, rowCount());
+        assertEquals(rowCount(), storedCount());
+        // other recipes in the database may be repaired, this one must already be right
+        upvoteReconciliationService.reconcile();
+        assertEquals(odd, storedCount());
+    }
+
+    @Test
+    void drainWritesEverythingPending() {
+        for (int i = 1; i <= 3; i++) {
+            recipeUpvoteService.toggle(recipe.getRecipeID(), users.get(i).getUserID());
+        }
+        int doubleTap = users.get(4).getUserID();
+        recipeUpvoteService.toggle(recipe.getRecipeID(), doubleTap);
+        recipeUpvoteService.toggle(recipe.getRecipeID(), doubleTap);
+        assertEquals(0, rowCount());
+
+        // what shutdown runs
+        buffer.drain();
+
+        assertEquals(3, rowCount());
+        assertEquals(3, storedCount());
+        assertEquals(0, buffer.flush());
+    }
+
+    private int storedCount() {
+        return recipeRepository.findUpvotesByRecipeID(recipe.getRecipeID());
+    }
+
+    private int rowCount() {
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from recipe_upvotes where recipe_id = ?", Integer.class, recipe.getRecipeID());
+        return rows == null ? 0 : rows;
+    }
+}
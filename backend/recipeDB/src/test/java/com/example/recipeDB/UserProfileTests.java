@@ -0,0 +1,117 @@
+package com.example.recipeDB;
+
+import com.example.recipeDB.controllers.RecipeController;
+import com.example.recipeDB.dto.RecipeSummaryDTO;
+import com.example.recipeDB.dto.UserProfileDTO;
+import com.example.recipeDB.models.Recipe;
+import com.example.recipeDB.models.User;
+import com.example.recipeDB.service.RecipeService;
+import com.example.recipeDB.service.RecipeUpvoteService;
+import com.example.recipeDB.service.UserStatsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.recipeDB.TestFixtures.newComment;
+import static com.example.recipeDB.TestFixtures.newRecipe;
+import static com.example.recipeDB.TestFixtures.newUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class UserProfileTests {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private RecipeController recipeController;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeUpvoteService recipeUpvoteService;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User fan;
+    private Recipe easy;
+    private Recipe hard;
+
+    @BeforeEach
+    void seed() {
+        owner = newUser(entityManager, "profile-owner");
+        fan = newUser(entityManager, "profile-fan");
+        easy = newRecipe(entityManager, owner, "Profile toast", r -> r.setDifficulty(2));
+        hard = newRecipe(entityManager, owner, "Profile croissants", r -> r.setDifficulty(4));
+        newRecipe(entityManager, owner, "Profile water");
+        newComment(entityManager, easy, fan, "Lovely");
+        newComment(entityManager, hard, fan, "Lovely");
+        newComment(entityManager, hard, owner, "Lovely");
+        entityManager.flush();
+        recipeUpvoteService.toggle(easy.getRecipeID(), fan.getUserID());
+        recipeUpvoteService.toggle(hard.getRecipeID(), fan.getUserID());
+        recipeUpvoteService.toggle(hard.getRecipeID(), owner.getUserID());
+    }
+
+    @Test
+    void totalsFollowInsertsAndUpvotes() {
+        UserProfileDTO profile = recipeController.getProfile(owner.getUsername(), null, null);
+
+        assertEquals(3, profile.recipeCount());
+        assertEquals(3L, profile.upvotesReceived());
+        assertEquals(1, profile.commentCount());
+        assertEquals(3.0, profile.averageDifficulty());
+
+        UserProfileDTO fanProfile = recipeController.getProfile(fan.getUsername(), null, null);
+        assertEquals(0, fanProfile.recipeCount());
+        assertEquals(2, fanProfile.commentCount());
+        assertNull(fanProfile.averageDifficulty());
+    }
+
+    @Test
+    void totalsFollowEditsAndDeletes() {
+        jdbcTemplate.update("update recipes set difficulty = 5 where recipeid = ?", easy.getRecipeID());
+        recipeUpvoteService.toggle(hard.getRecipeID(), owner.getUserID());
+        // the JPA delete takes comments, tags and ingredients along, but not upvotes
+        jdbcTemplate.update("delete from recipe_upvotes where recipe_id = ?", easy.getRecipeID());
+        // so the delete loads the recipe with the comments persisted in seed()
+        entityManager.clear();
+        assertTrue(recipeService.delete(easy.getRecipeID()));
+        entityManager.flush();
+
+        UserProfileDTO profile = recipeController.getProfile(owner.getUsername(), null, null);
+        assertEquals(2, profile.recipeCount());
+        assertEquals(1L, profile.upvotesReceived());
+        assertEquals(4.0, profile.averageDifficulty());
+        assertEquals(1, recipeController.getProfile(fan.getUsername(), null, null).commentCount());
+        assertEquals(0, userStatsService.reconcile());
+    }
+
+    @Test
+    void recipesArePagedNewestFirst() {
+        UserProfileDTO first = recipeController.getProfile(owner.getUsername(), null, 2);
+        UserProfileDTO second = recipeController.getProfile(owner.getUsername(), first.recipes().nextCursor(), 2);
+
+        List<String> titles = List.of(first.recipes().items().get(0).title(), first.recipes().items().get(1).title(),
+                second.recipes().items().get(0).title());
+        assertEquals(List.of("Profile water", "Profile croissants", "Profile toast"), titles);
+        assertNull(second.recipes().nextCursor());
+        assertEquals(List.of(easy.getRecipeID()), second.recipes().items().stream().map(RecipeSummaryDTO::recipeID).toList());
+    }
+}
@@ -8,10 +8,14 @@ DROP TABLE IF EXISTS users CASCADE;
 
 DROP SEQUENCE IF EXISTS users_seq CASCADE;
 DROP SEQUENCE IF EXISTS recipes_seq CASCADE;
+DROP SEQUENCE IF EXISTS recipe_revision_seq CASCADE;
 
 
-CREATE SEQUENCE users_seq START 1;
-CREATE SEQUENCE recipes_seq START 1;
+-- INCREMENT BY matches the entities' allocationSize (ids are handed out in blocks of 50)
+CREATE SEQUENCE users_seq START 1 INCREMENT BY 50;
+CREATE SEQUENCE recipes_seq START 1 INCREMENT BY 50;
+-- stamps recipes.revision, the ETag source for the public read endpoints
+CREATE SEQUENCE recipe_revision_seq;
 
 
 CREATE TABLE users (
@@ -38,6 +42,12 @@ CREATE TABLE recipes (
     steps        VARCHAR(5000),
     image_url    TEXT,
     user_id      INTEGER NOT NULL,
+    revision     BIGINT NOT NULL DEFAULT nextval('recipe_revision_seq'),
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(steps, '')), 'C')
+    ) STORED,
 
     CONSTRAINT fk_recipes_user
         FOREIGN KEY (user_id) REFERENCES users(userid)
@@ -45,11 +55,20 @@ CREATE TABLE recipes (
 );
 
 CREATE INDEX idx_recipes_user_id ON recipes (user_id);
+CREATE INDEX idx_recipes_user_revision ON recipes (user_id, revision);
+CREATE INDEX idx_recipes_recipeid_revision ON recipes (recipeid) INCLUDE (revision);
 CREATE INDEX idx_recipes_title ON recipes (title);
+-- keyset indexes for the /api/recipes/feed sort orders
+CREATE INDEX idx_recipes_upvotes_id ON recipes (upvotes, recipeid);
+CREATE INDEX idx_recipes_total_time ON recipes ((coalesce(prep_time, 0) + coalesce(cook_time, 0)), recipeid);
+-- full-text search, /api/recipes/search
+CREATE INDEX idx_recipes_search_vector ON recipes USING gin (search_vector);
 
 CREATE TABLE recipe_tags (
     recipe_recipeid INTEGER NOT NULL,
     tags            VARCHAR(64) NOT NULL,
+    -- the recipe's revision, kept current by triggers (see schema.sql)
+    revision        BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_recipe_tags_recipe
         FOREIGN KEY (recipe_recipeid) REFERENCES recipes(recipeid)
         ON DELETE CASCADE,
@@ -72,6 +91,7 @@ CREATE TABLE recipe_tags (
 
 
 CREATE INDEX idx_recipe_tags_tag ON recipe_tags (tags);
+CREATE INDEX idx_recipe_tags_tag_revision ON recipe_tags (tags, revision);
 
 
 CREATE TABLE recipe_ingredients (
@@ -113,6 +133,8 @@ CREATE TABLE comments (
         FOREIGN KEY (recipe_id) REFERENCES recipes(recipeid) ON DELETE CASCADE
 );
 CREATE INDEX idx_comments_recipe ON comments (recipe_id);
+-- keyset pages of a recipe's comments, newest first
+CREATE INDEX idx_comments_recipe_created_id ON comments (recipe_id, created_at, commentid);
 CREATE INDEX idx_comments_user   ON comments (user_id);
 
 
@@ -128,4 +150,138 @@ CREATE TABLE upvotes (
 );
 CREATE INDEX idx_upvotes_recipe ON upvotes (recipe_id);
 
+
+-- forward-decayed trending scores, see schema.sql
+DROP TABLE IF EXISTS recipe_trending CASCADE;
+DROP TABLE IF EXISTS trending_state CASCADE;
+
+CREATE TABLE trending_state (
+    id    INTEGER PRIMARY KEY CHECK (id = 1),
+    epoch TIMESTAMPTZ NOT NULL
+);
+
+CREATE TABLE recipe_trending (
+    recipe_id INTEGER PRIMARY KEY,
+    score     DOUBLE PRECISION NOT NULL,
+    CONSTRAINT fk_recipe_trending_recipe
+        FOREIGN KEY (recipe_id) REFERENCES recipes(recipeid) ON DELETE CASCADE
+);
+CREATE INDEX idx_recipe_trending_score ON recipe_trending (score DESC, recipe_id DESC);
+
+-- per-user profile totals maintained by triggers, see schema.sql
+DROP TABLE IF EXISTS user_stats CASCADE;
+
+CREATE TABLE user_stats (
+    user_id          INTEGER PRIMARY KEY,
+    recipe_count     INTEGER NOT NULL DEFAULT 0,
+    upvotes_received BIGINT  NOT NULL DEFAULT 0,
+    comment_count    INTEGER NOT NULL DEFAULT 0,
+    difficulty_sum   BIGINT  NOT NULL DEFAULT 0,
+    difficulty_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT fk_user_stats_user
+        FOREIGN KEY (user_id) REFERENCES users(userid) ON DELETE CASCADE
+);
+CREATE INDEX idx_recipes_user_recipeid ON recipes (user_id, recipeid);
+
+CREATE OR REPLACE FUNCTION user_stats_recipes() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO user_stats AS s (user_id, recipe_count, upvotes_received, difficulty_sum, difficulty_count)
+        SELECT user_id, count(*), sum(coalesce(upvotes, 0)), coalesce(sum(difficulty), 0), count(difficulty)
+        FROM new_rows GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET
+            recipe_count = s.recipe_count + excluded.recipe_count,
+            upvotes_received = s.upvotes_received + excluded.upvotes_received,
+            difficulty_sum = s.difficulty_sum + excluded.difficulty_sum,
+            difficulty_count = s.difficulty_count + excluded.difficulty_count;
+    ELSIF TG_OP = ''DELETE'' THEN
+        UPDATE user_stats s SET
+            recipe_count = s.recipe_count - d.recipes,
+            upvotes_received = s.upvotes_received - d.upvotes,
+            difficulty_sum = s.difficulty_sum - d.difficulty_sum,
+            difficulty_count = s.difficulty_count - d.difficulty_count
+        FROM (SELECT user_id, count(*) AS recipes, sum(coalesce(upvotes, 0)) AS upvotes,
+                     coalesce(sum(difficulty), 0) AS difficulty_sum, count(difficulty) AS difficulty_count
+              FROM old_rows GROUP BY user_id) d
+        WHERE s.user_id = d.user_id;
+    ELSE
+        UPDATE user_stats s SET
+            upvotes_received = s.upvotes_received + d.upvotes,
+            difficulty_sum = s.difficulty_sum + d.difficulty_sum,
+            difficulty_count = s.difficulty_count + d.difficulty_count
+        FROM (SELECT n.user_id,
+                     sum(coalesce(n.upvotes, 0) - coalesce(o.upvotes, 0)) AS upvotes,
+                     sum(coalesce(n.difficulty, 0) - coalesce(o.difficulty, 0)) AS difficulty_sum,
+                     sum((n.difficulty IS NOT NULL)::int - (o.difficulty IS NOT NULL)::int) AS difficulty_count
+              FROM new_rows n JOIN old_rows o ON o.recipeid = n.recipeid
+              WHERE n.upvotes IS DISTINCT FROM o.upvotes OR n.difficulty IS DISTINCT FROM o.difficulty
+              GROUP BY n.user_id) d
+        WHERE s.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE OR REPLACE FUNCTION user_stats_comments() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO user_stats AS s (user_id, comment_count)
+        SELECT user_id, count(*) FROM new_rows GROUP BY user_id
+        ON CONFLICT (user_id) DO UPDATE SET comment_count = s.comment_count + excluded.comment_count;
+    ELSE
+        UPDATE user_stats s SET comment_count = s.comment_count - d.comments
+        FROM (SELECT user_id, count(*) AS comments FROM old_rows GROUP BY user_id) d
+        WHERE s.user_id = d.user_id;
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE TRIGGER user_stats_recipes_insert AFTER INSERT ON recipes
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+CREATE TRIGGER user_stats_recipes_delete AFTER DELETE ON recipes
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+CREATE TRIGGER user_stats_recipes_update AFTER UPDATE ON recipes
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_recipes();
+CREATE TRIGGER user_stats_comments_insert AFTER INSERT ON comments
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments();
+CREATE TRIGGER user_stats_comments_delete AFTER DELETE ON comments
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments();
+
+-- listing ETag sources, see schema.sql
+DROP TABLE IF EXISTS recipe_removals CASCADE;
+
+CREATE TABLE recipe_removals (
+    id       INTEGER PRIMARY KEY CHECK (id = 1),
+    revision BIGINT NOT NULL
+);
+INSERT INTO recipe_removals (id, revision) VALUES (1, 0);
+
+CREATE OR REPLACE FUNCTION recipe_tags_stamp() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    NEW.revision := coalesce((SELECT revision FROM recipes WHERE recipeid = NEW.recipe_recipeid), 0);
+    RETURN NEW;
+END';
+
+CREATE OR REPLACE FUNCTION recipe_tags_revisions() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    UPDATE recipe_tags t SET revision = n.revision
+    FROM new_rows n
+    WHERE t.recipe_recipeid = n.recipeid AND t.revision <> n.revision;
+    RETURN NULL;
+END';
+
+CREATE OR REPLACE FUNCTION recipe_tags_removed() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF EXISTS (SELECT 1 FROM old_rows) THEN
+        UPDATE recipe_removals SET revision = nextval(''recipe_revision_seq'') WHERE id = 1;
+    END IF;
+    RETURN NULL;
+END';
+
+CREATE TRIGGER recipe_tags_stamp BEFORE INSERT ON recipe_tags
+    FOR EACH ROW EXECUTE FUNCTION recipe_tags_stamp();
+CREATE TRIGGER recipe_tags_removed AFTER DELETE ON recipe_tags
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION recipe_tags_removed();
+CREATE TRIGGER recipe_tags_revisions AFTER UPDATE ON recipes
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION recipe_tags_revisions();
+
 COMMIT;